@@ -0,0 +1,56 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import programmerzamannow.springdata.jpa.service.CategoryService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction overhead of {@code CategoryService}. Both methods end in a rollback by design,
+ * so this measures begin, five inserts and rollback.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class CategoryServiceBenchmark {
+
+    private CategoryService categoryService;
+
+    @Setup(Level.Trial)
+    public void setUp(JpaState state) {
+        categoryService = state.context.getBean(CategoryService.class);
+    }
+
+    @Benchmark
+    public boolean createCategories() {
+        try {
+            categoryService.createCategories();
+            return false;
+        } catch (RuntimeException exception) {
+            return true;
+        }
+    }
+
+    @Benchmark
+    public boolean mandatoryWithoutTransaction() {
+        try {
+            categoryService.test();
+            return false;
+        } catch (RuntimeException exception) {
+            return true;
+        }
+    }
+}
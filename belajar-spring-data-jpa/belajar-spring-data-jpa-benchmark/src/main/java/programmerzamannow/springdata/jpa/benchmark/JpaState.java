@@ -0,0 +1,104 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import programmerzamannow.springdata.jpa.BelajarSpringDataJpaApplication;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Boots the JPA layer once per trial against in-memory H2 and seeds {@code products} rows
+ * spread over {@link #CATEGORIES} categories.
+ */
+@State(Scope.Benchmark)
+public class JpaState {
+
+    public static final int CATEGORIES = 100;
+
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int products;
+
+    public ConfigurableApplicationContext context;
+
+    public ProductRepository productRepository;
+
+    public CategoryRepository categoryRepository;
+
+    public TransactionTemplate transactionTemplate;
+
+    public List<Category> categories;
+
+    /**
+     * Id of every seeded product by its index, product {@code i} belongs to category {@code i % CATEGORIES}.
+     */
+    public long[] productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = application().run();
+        productRepository = context.getBean(ProductRepository.class);
+        categoryRepository = context.getBean(CategoryRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category category = new Category();
+            category.setName("CATEGORY " + i);
+            categories.add(categoryRepository.save(category));
+        }
+
+        productIds = new long[products];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int offset = 0; offset < products; offset += SEED_CHUNK) {
+            int size = Math.min(SEED_CHUNK, products - offset);
+            List<Product> chunk = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                chunk.add(product(offset + i, categories.get((offset + i) % CATEGORIES), random));
+            }
+            productRepository.saveAllBatched(chunk, 1_000);
+            for (int i = 0; i < size; i++) {
+                productIds[offset + i] = chunk.get(i).getId();
+            }
+        }
+    }
+
+    /**
+     * Subclasses add properties for variants of the application.
+     */
+    protected SpringApplicationBuilder application() {
+        return new SpringApplicationBuilder(BelajarSpringDataJpaApplication.class)
+                .profiles("benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public Category category(SplittableRandom random) {
+        return categories.get(random.nextInt(CATEGORIES));
+    }
+
+    public static Product product(int index, Category category, SplittableRandom random) {
+        Product product = new Product();
+        product.setName("Product " + index);
+        product.setPrice(1_000L + random.nextLong(10_000_000L));
+        product.setCategory(category);
+        return product;
+    }
+}
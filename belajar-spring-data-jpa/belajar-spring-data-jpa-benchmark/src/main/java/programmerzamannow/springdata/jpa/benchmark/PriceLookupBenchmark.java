@@ -0,0 +1,108 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.price.PriceSnapshot;
+import programmerzamannow.springdata.jpa.service.PriceSnapshotService;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One price lookup of a random existing product per invocation, the way {@code GET /api/products/{id}/price}
+ * resolves it:
+ * <ul>
+ *     <li>{@code snapshot}: the primitive {@link PriceSnapshot} lookup alone</li>
+ *     <li>{@code snapshotService}: the endpoint path, snapshot plus the {@link ProductPrice} for the response</li>
+ *     <li>{@code repository}: {@code ProductRepository.findPriceById}, the endpoint before the snapshot</li>
+ *     <li>{@code secondLevelCache}: {@code findById} with {@code Product} in the second-level cache, warmed up by
+ *     the warmup iterations</li>
+ * </ul>
+ * Add {@code -prof gc} to compare the bytes allocated per lookup and {@code -t 4} for concurrent readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class PriceLookupBenchmark {
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Benchmark
+    public long snapshot(SnapshotState state) {
+        return state.priceSnapshot.price(state.id(random));
+    }
+
+    @Benchmark
+    public Optional<ProductPrice> snapshotService(SnapshotState state) {
+        return state.priceSnapshotService.findPrice(state.id(random));
+    }
+
+    @Benchmark
+    public Optional<ProductPrice> repository(SnapshotState state) {
+        return state.productRepository.findPriceById(state.id(random));
+    }
+
+    @Benchmark
+    public Optional<Product> secondLevelCache(CachedState state) {
+        return state.productRepository.findById(state.id(random));
+    }
+
+    /**
+     * The seeded products with a fully loaded snapshot.
+     */
+    @State(Scope.Benchmark)
+    public static class SnapshotState extends JpaState {
+
+        public PriceSnapshot priceSnapshot;
+
+        public PriceSnapshotService priceSnapshotService;
+
+        private long firstId;
+
+        private long lastId;
+
+        @Setup(Level.Trial)
+        public void loadSnapshot() {
+            priceSnapshot = context.getBean(PriceSnapshot.class);
+            priceSnapshotService = context.getBean(PriceSnapshotService.class);
+            priceSnapshotService.refresh();
+            firstId = productRepository.findMinId();
+            lastId = productRepository.findMaxId();
+        }
+
+        public long id(SplittableRandom random) {
+            return random.nextLong(firstId, lastId + 1);
+        }
+    }
+
+    /**
+     * Same data with every entity cacheable, regions missing from {@code ehcache.xml} are created unbounded.
+     */
+    @State(Scope.Benchmark)
+    public static class CachedState extends SnapshotState {
+
+        @Override
+        protected SpringApplicationBuilder application() {
+            return super.application().properties(
+                    "spring.jpa.properties.jakarta.persistence.sharedCache.mode=ALL",
+                    "spring.jpa.properties.hibernate.cache.default_cache_concurrency_strategy=read-write",
+                    "spring.jpa.properties.hibernate.cache.missing_cache_strategy=create");
+        }
+    }
+}
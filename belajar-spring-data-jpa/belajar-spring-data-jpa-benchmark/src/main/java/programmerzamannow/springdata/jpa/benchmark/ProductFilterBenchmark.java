@@ -0,0 +1,90 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import jakarta.persistence.criteria.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search UI request rate, a random filter of 1 to 20 categories and a price range, first page of 20 by price.
+ * {@code specification} builds the Criteria tree per request the way the search UI did, {@code filter} goes through
+ * the cached JPQL shapes of {@code findAllByFilter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Threads(4)
+@State(Scope.Thread)
+public class ProductFilterBenchmark {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20, Sort.by("price", "id"));
+
+    private final SplittableRandom random = new SplittableRandom(17);
+
+    @Benchmark
+    public Page<Product> specification(JpaState state) {
+        ProductFilter filter = randomFilter(state);
+        return state.productRepository.findAll(specification(filter), PAGE);
+    }
+
+    @Benchmark
+    public Page<Product> filter(JpaState state) {
+        return state.productRepository.findAllByFilter(randomFilter(state), PAGE);
+    }
+
+    private ProductFilter randomFilter(JpaState state) {
+        int size = 1 + random.nextInt(20);
+        List<Long> categoryIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            categoryIds.add(state.category(random).getId());
+        }
+        long minPrice = random.nextLong(9_000_000L);
+        return ProductFilter.builder()
+                .categoryIds(categoryIds)
+                .minPrice(minPrice)
+                .maxPrice(minPrice + 500_000L)
+                .build();
+    }
+
+    private Specification<Product> specification(ProductFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.nameLike() != null) {
+                predicates.add(builder.like(root.get("name"), filter.nameLike()));
+            }
+            if (filter.categoryIds() != null) {
+                predicates.add(root.get("category").get("id").in(filter.categoryIds()));
+            }
+            if (filter.categoryName() != null) {
+                predicates.add(builder.equal(root.join("category").get("name"), filter.categoryName()));
+            }
+            if (filter.minPrice() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
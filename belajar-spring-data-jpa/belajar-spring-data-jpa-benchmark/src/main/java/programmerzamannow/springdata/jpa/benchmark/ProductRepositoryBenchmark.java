@@ -0,0 +1,95 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Read paths of {@code ProductRepository}. Every invocation picks a random category and page,
+ * pages are 20 rows like the catalog screens.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class ProductRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Benchmark
+    public List<Product> findAllByCategoryName(JpaState state) {
+        return state.productRepository.findAllByCategory_Name(state.category(random).getName(), page(state)).getContent();
+    }
+
+    @Benchmark
+    public List<Product> findAllWithCategoryByCategoryName(JpaState state) {
+        return state.productRepository.findAllWithCategoryByCategory_Name(state.category(random).getName(), page(state)).getContent();
+    }
+
+    @Benchmark
+    public List<ProductSummary> findAllSummaryByCategoryName(JpaState state) {
+        return state.productRepository.findAllSummaryByCategoryName(state.category(random).getName(), page(state)).getContent();
+    }
+
+    /**
+     * Resumes at the same random page as the offset benchmarks, from the last id of the page before it.
+     */
+    @Benchmark
+    public KeysetPage<Product> scrollByCategoryName(JpaState state) {
+        int category = random.nextInt(JpaState.CATEGORIES);
+        int page = page(state).getPageNumber();
+        String token = page == 0 ? null : KeysetPage.encode(ScrollPosition.forward(
+                Map.of("id", state.productIds[category + (page * PAGE_SIZE - 1) * JpaState.CATEGORIES])));
+        return state.productRepository.scrollByCategoryName(state.categories.get(category).getName(), token, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<Product> searchProduct(JpaState state) {
+        return state.productRepository.searchProduct("%" + random.nextInt(1_000) + "%", page(state));
+    }
+
+    @Benchmark
+    public long countByCategoryName(JpaState state) {
+        return state.productRepository.countByCategory_name(state.category(random).getName());
+    }
+
+    @Benchmark
+    public long streamAllByCategory(JpaState state) {
+        Category category = state.category(random);
+        return state.transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            try (Stream<Product> stream = state.productRepository.streamAllByCategory(category)) {
+                return stream.count();
+            }
+        });
+    }
+
+    private PageRequest page(JpaState state) {
+        int pages = Math.max(1, state.products / JpaState.CATEGORIES / PAGE_SIZE);
+        return PageRequest.of(random.nextInt(pages), PAGE_SIZE, Sort.by(Sort.Order.asc("id")));
+    }
+}
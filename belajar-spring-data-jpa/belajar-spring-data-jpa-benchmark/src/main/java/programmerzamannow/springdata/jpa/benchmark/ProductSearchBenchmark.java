@@ -0,0 +1,42 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search box query for a product number, leading-wildcard LIKE ({@code searchProduct}) against the Lucene index
+ * ({@code fullTextSearch}), first page of 20 results.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class ProductSearchBenchmark {
+
+    private final SplittableRandom random = new SplittableRandom(13);
+
+    @Benchmark
+    public Page<Product> like(JpaState state) {
+        return state.productRepository.searchProduct("%" + random.nextInt(state.products) + "%", PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Product> fullText(JpaState state) {
+        return state.productRepository.fullTextSearch(String.valueOf(random.nextInt(state.products)), PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,64 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts of {@code batch} products per invocation. Every transaction is rolled back so the
+ * dataset size stays the one seeded by {@link JpaState}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class ProductWriteBenchmark {
+
+    @Param({"1000"})
+    public int batch;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Benchmark
+    public int saveAll(JpaState state) {
+        List<Product> products = products(state);
+        return state.transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return state.productRepository.saveAll(products).size();
+        });
+    }
+
+    @Benchmark
+    public int saveAllBatched(JpaState state) {
+        List<Product> products = products(state);
+        return state.transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return state.productRepository.saveAllBatched(products, 50);
+        });
+    }
+
+    private List<Product> products(JpaState state) {
+        Category category = state.category(random);
+        List<Product> products = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            products.add(JpaState.product(i, category, random));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,117 @@
+package programmerzamannow.springdata.jpa.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import programmerzamannow.springdata.jpa.BelajarSpringDataJpaApplication;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cold start of the whole application, web server included, up to the first product query. Every fork is a fresh
+ * JVM that starts the application once, so class loading is part of the measurement. {@code default} creates the
+ * schema with {@code ddl-auto} like development does, {@code fast} adds the fast profile on a schema migrated by
+ * Flyway beforehand. After each start the slowest phases are printed from the {@link BufferingApplicationStartup}
+ * timeline.
+ * <p>
+ * AOT and CDS need the extracted jar of {@code mvn -Pfast-start package} and are measured by starting that jar, see
+ * the fast-start profile of the application pom.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgsAppend = {"-Xmx1g"})
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final int TOP_PHASES = 12;
+
+    @Param({"default", "fast"})
+    public String mode;
+
+    private String url;
+
+    private BufferingApplicationStartup startup;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        url = "jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        if (mode.equals("fast")) {
+            Flyway.configure().dataSource(url, "sa", "").load().migrate();
+        }
+        startup = new BufferingApplicationStartup(10_000);
+    }
+
+    @Benchmark
+    public long startToFirstQuery() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BelajarSpringDataJpaApplication.class)
+                .applicationStartup(startup)
+                .properties("spring.datasource.url=" + url,
+                        "spring.main.web-application-type=servlet",
+                        "server.port=0");
+        if (mode.equals("fast")) {
+            builder.profiles("benchmark", "fast").properties("spring.jpa.hibernate.ddl-auto=none");
+        } else {
+            builder.profiles("benchmark");
+        }
+        context = builder.run();
+        return context.getBean(ProductRepository.class).count();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        context.close();
+        printPhases(startup.getBufferedTimeline());
+    }
+
+    /**
+     * Steps are nested, a bean's time includes the beans it pulled in, so the numbers overlap and do not add up.
+     */
+    private void printPhases(StartupTimeline timeline) {
+        Map<String, Duration> phases = timeline.getEvents().stream()
+                .collect(Collectors.toMap(this::phaseName, StartupTimeline.TimelineEvent::getDuration, Duration::plus));
+        Map<String, Duration> slowest = phases.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_PHASES)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+
+        System.out.println();
+        System.out.println("Slowest startup phases (" + mode + "):");
+        slowest.forEach((name, duration) -> System.out.printf("  %6d ms  %s%n", duration.toMillis(), name));
+    }
+
+    private String phaseName(StartupTimeline.TimelineEvent event) {
+        StartupStep step = event.getStartupStep();
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return step.getName() + " " + tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
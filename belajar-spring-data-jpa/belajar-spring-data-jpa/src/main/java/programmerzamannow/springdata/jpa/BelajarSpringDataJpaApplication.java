@@ -2,14 +2,24 @@ package programmerzamannow.springdata.jpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC only reads, a second transaction manager next to the JPA one would make @Transactional ambiguous
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 @EnableJpaAuditing
+@EnableAsync
+@EnableScheduling
 public class BelajarSpringDataJpaApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BelajarSpringDataJpaApplication.class, args);
+		SpringApplication application = new SpringApplication(BelajarSpringDataJpaApplication.class);
+		// startup steps with their durations on /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
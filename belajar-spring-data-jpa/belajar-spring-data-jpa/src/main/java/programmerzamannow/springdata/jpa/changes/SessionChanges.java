@@ -0,0 +1,57 @@
+package programmerzamannow.springdata.jpa.changes;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Changes collected over one transaction of a session, one instance per session and subclass. The first
+ * {@link #of(SessionImplementor, Class, Supplier)} of a transaction registers the instance with the action queue of
+ * the session, it is forgotten again once the transaction completed, so the next transaction starts empty.
+ * <p>
+ * Subclasses only collect and write: {@link #beforeCommit(SessionImplementor)} runs after the last flush on the
+ * connection of the transaction, so what it writes commits or rolls back with the changes, and
+ * {@link #afterCompletion(boolean)} runs once the outcome is known, for work outside the database.
+ */
+public abstract class SessionChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+    private static final Map<Key, SessionChanges> CURRENT = new ConcurrentHashMap<>();
+
+    /**
+     * Changes of the transaction running on this session, created by {@code factory} and registered with the
+     * session on first use.
+     */
+    public static <T extends SessionChanges> T of(SessionImplementor session, Class<T> type, Supplier<T> factory) {
+        return type.cast(CURRENT.computeIfAbsent(new Key(session, type), key -> {
+            SessionChanges changes = factory.get();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) changes);
+            return changes;
+        }));
+    }
+
+    protected void beforeCommit(SessionImplementor session) {
+    }
+
+    protected void afterCompletion(boolean committed) {
+    }
+
+    @Override
+    public final void doBeforeTransactionCompletion(SessionImplementor session) {
+        beforeCommit(session);
+    }
+
+    @Override
+    public final void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+        CURRENT.remove(new Key(session, getClass()));
+        afterCompletion(success);
+    }
+
+    private record Key(SharedSessionContractImplementor session, Class<?> type) {
+    }
+}
@@ -0,0 +1,18 @@
+package programmerzamannow.springdata.jpa.coalescing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the annotated repository method with equal arguments share one query, see
+ * {@link RequestCoalescer}. For read methods whose callers can live with a result up to
+ * {@code app.repository.coalescing.window} old.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
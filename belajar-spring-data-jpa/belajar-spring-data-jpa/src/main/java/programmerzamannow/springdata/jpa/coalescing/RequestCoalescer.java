@@ -0,0 +1,191 @@
+package programmerzamannow.springdata.jpa.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import programmerzamannow.springdata.jpa.shard.ShardContext;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single flight for {@link Coalesced} repository methods. The first call with a given method, arguments and shard
+ * runs the query, calls with the same key arriving while it runs wait for it and get its result, and for
+ * {@code window} after it finished the result is handed out without a query at all. A failed query is not shared
+ * with later callers, they run it again.
+ * <p>
+ * Calls inside a transaction or with an open {@code EntityManager} are not coalesced, they expect entities managed
+ * by their own persistence context. Coalesced callers get detached entities shared with the other callers of the
+ * same flight and their own copy of a returned list, entities meant to be changed are loaded in a transaction.
+ * <p>
+ * Every committed entity insert, update or delete in this application ends all flights and cached results, so a
+ * caller reads its own writes. Bulk statements and other nodes' writes show after {@code window} at the latest.
+ * <p>
+ * Per method {@code repository.coalescing.calls} counts the calls by outcome: {@code executed} ran the query,
+ * {@code joined} waited for a running one, {@code cached} got a finished result, {@code bypassed} was not eligible.
+ * {@code repository.coalescing.ratio} is the share of eligible calls that did not run a query.
+ */
+public class RequestCoalescer {
+
+    private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final long windowNanos;
+
+    private final Executor expiry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry, Duration window) {
+        this.meterRegistry = meterRegistry;
+        this.windowNanos = window.toNanos();
+        this.expiry = CompletableFuture.delayedExecutor(windowNanos, TimeUnit.NANOSECONDS, Runnable::run);
+    }
+
+    public MethodInterceptor interceptor(Class<?> repositoryInterface) {
+        String repository = repositoryInterface.getSimpleName();
+        return invocation -> invocation.getMethod().isAnnotationPresent(Coalesced.class)
+                ? invoke(repository, invocation)
+                : invocation.proceed();
+    }
+
+    /**
+     * Ends every flight and cached result, called after a commit that changed entities.
+     */
+    public void invalidate() {
+        epoch.incrementAndGet();
+    }
+
+    private Object invoke(String repository, MethodInvocation invocation) throws Throwable {
+        Meters methodMeters = meters.computeIfAbsent(invocation.getMethod(), method -> new Meters(repository, method.getName()));
+        if (TransactionSynchronizationManager.isActualTransactionActive() || isEntityManagerBound()) {
+            methodMeters.bypassed.increment();
+            return invocation.proceed();
+        }
+
+        Key key = new Key(invocation.getMethod(), Arrays.asList(invocation.getArguments()), ShardContext.current());
+        long currentEpoch = epoch.get();
+        long now = System.nanoTime();
+        Flight created = new Flight(currentEpoch);
+        Flight flight = flights.compute(key, (k, existing) ->
+                existing != null && existing.isUsable(currentEpoch, now) ? existing : created);
+
+        if (flight != created) {
+            (flight.result.isDone() ? methodMeters.cached : methodMeters.joined).increment();
+            try {
+                return copy(flight.result.join());
+            } catch (CompletionException exception) {
+                throw exception.getCause();
+            }
+        }
+
+        methodMeters.executed.increment();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable exception) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(exception);
+            throw exception;
+        }
+        flight.expiresAt = System.nanoTime() + windowNanos;
+        flight.result.complete(result instanceof List<?> list ? Collections.unmodifiableList(new ArrayList<>(list)) : result);
+        if (windowNanos > 0) {
+            expiry.execute(() -> flights.remove(key, flight));
+        } else {
+            flights.remove(key, flight);
+        }
+        return result;
+    }
+
+    private boolean isEntityManagerBound() {
+        return TransactionSynchronizationManager.getResourceMap().values().stream()
+                .anyMatch(EntityManagerHolder.class::isInstance);
+    }
+
+    private Object copy(Object result) {
+        return result instanceof List<?> list ? new ArrayList<>(list) : result;
+    }
+
+    private record Key(Method method, List<Object> arguments, int shard) {
+    }
+
+    private static class Flight {
+
+        private final long epoch;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private volatile long expiresAt;
+
+        private Flight(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * Running, or finished successfully less than the window ago, and no entity change committed since it began.
+         */
+        private boolean isUsable(long currentEpoch, long now) {
+            if (epoch != currentEpoch) {
+                return false;
+            }
+            return !result.isDone() || (!result.isCompletedExceptionally() && now - expiresAt < 0);
+        }
+    }
+
+    private class Meters {
+
+        private final Counter executed;
+
+        private final Counter joined;
+
+        private final Counter cached;
+
+        private final Counter bypassed;
+
+        private Meters(String repository, String method) {
+            executed = counter(repository, method, "executed");
+            joined = counter(repository, method, "joined");
+            cached = counter(repository, method, "cached");
+            bypassed = counter(repository, method, "bypassed");
+            Gauge.builder("repository.coalescing.ratio", this, Meters::ratio)
+                    .description("Share of coalesced calls served without running a query")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+
+        private double ratio() {
+            double saved = joined.count() + cached.count();
+            double total = saved + executed.count();
+            return total == 0 ? 0 : saved / total;
+        }
+
+        private Counter counter(String repository, String method, String outcome) {
+            return Counter.builder("repository.coalescing.calls")
+                    .description("Calls of coalesced repository methods, by outcome")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
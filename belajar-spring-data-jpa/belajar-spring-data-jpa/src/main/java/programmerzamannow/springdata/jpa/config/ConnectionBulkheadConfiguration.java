@@ -0,0 +1,43 @@
+package programmerzamannow.springdata.jpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionBulkheadConfiguration {
+
+    /**
+     * Wrap the Hikari pool in a bulkhead with one permit per pooled connection, waiting at most
+     * as long as Hikari itself would. Pools without a configured name are named after their bean.
+     */
+    @Bean
+    public static BeanPostProcessor connectionBulkheadPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    return new ConnectionBulkheadDataSource(hikariDataSource,
+                            hikariDataSource.getPoolName() != null ? hikariDataSource.getPoolName() : beanName,
+                            hikariDataSource.getMaximumPoolSize(),
+                            hikariDataSource.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionBulkheadMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConnectionBulkheadDataSource.class::isInstance)
+                .forEach(dataSource -> ((ConnectionBulkheadDataSource) dataSource).bindTo(registry));
+    }
+}
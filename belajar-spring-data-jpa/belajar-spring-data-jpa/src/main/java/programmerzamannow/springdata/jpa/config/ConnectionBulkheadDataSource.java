@@ -0,0 +1,123 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most {@code permits} threads hold a connection, everybody else parks on a fair semaphore
+ * before reaching the pool. With virtual threads there can be far more callers than connections,
+ * they queue here in FIFO order instead of spinning on the pool, and the wait is measured. The meters
+ * are tagged with the pool name, every pool has its own bulkhead.
+ */
+public class ConnectionBulkheadDataSource extends DelegatingDataSource implements MeterBinder {
+
+    private final Semaphore semaphore;
+
+    private final long timeoutMillis;
+
+    private final String poolName;
+
+    private volatile Timer waitTimer;
+
+    public ConnectionBulkheadDataSource(DataSource targetDataSource, String poolName, int permits, long timeoutMillis) {
+        super(targetDataSource);
+        this.semaphore = new Semaphore(permits, true);
+        this.timeoutMillis = timeoutMillis;
+        this.poolName = poolName;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        waitTimer = Timer.builder("db.bulkhead.wait")
+                .description("Time spent waiting for a connection permit")
+                .tag("pool", poolName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.waiting", semaphore, Semaphore::getQueueLength)
+                .description("Threads waiting for a connection permit")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.available", semaphore, Semaphore::availablePermits)
+                .description("Connection permits currently free")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasing(super.getConnection());
+        } catch (SQLException | RuntimeException exception) {
+            semaphore.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasing(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException exception) {
+            semaphore.release();
+            throw exception;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No connection permit available after " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", exception);
+        } finally {
+            Timer timer = waitTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Connection releasing(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionBulkheadDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException exception) {
+                            throw exception.getTargetException();
+                        } finally {
+                            semaphore.release();
+                        }
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException exception) {
+                        throw exception.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,22 @@
+package programmerzamannow.springdata.jpa.config;
+
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate takes a single integrator provider, every {@link Integrator} bean goes through this one.
+ */
+@Configuration
+public class HibernateIntegratorConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer integratorProviderCustomizer(ObjectProvider<Integrator> integrators) {
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> integrators.orderedStream().toList());
+    }
+}
@@ -0,0 +1,27 @@
+package programmerzamannow.springdata.jpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The JDBC pool Spring Boot would create from {@code spring.datasource.*}. Boot backs off as soon as an R2DBC
+ * {@code ConnectionFactory} exists, see {@code programmerzamannow.springdata.jpa.reactive}, but JPA keeps using
+ * JDBC. With replicas or shards enabled {@link ReadWriteRoutingConfiguration} or {@link ShardingConfiguration}
+ * builds the {@code dataSource} instead.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfiguration {
+
+    @Bean
+    @ConditionalOnExpression("!${app.datasource.replicas.enabled:false} and !${app.datasource.shards.enabled:false}")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,27 @@
+package programmerzamannow.springdata.jpa.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Arrays;
+
+/**
+ * Only takes effect with {@code spring.main.lazy-initialization=true}, as in the fast profile.
+ */
+@Configuration
+public class LazyInitializationConfiguration {
+
+    /**
+     * A bean with {@code @Scheduled} methods is only scheduled once it exists, nothing would ever ask for the
+     * reconciliation or the outbox relay, so those stay eager.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(beanType))
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+    }
+}
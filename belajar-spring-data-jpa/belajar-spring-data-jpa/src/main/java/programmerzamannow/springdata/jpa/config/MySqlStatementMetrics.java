@@ -0,0 +1,68 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server side prepared statement counters from {@code SHOW GLOBAL STATUS}. The status is read at most
+ * once per {@code refreshMillis} however often the registry is scraped.
+ */
+public class MySqlStatementMetrics implements MeterBinder {
+
+    private static final String QUERY = "SHOW GLOBAL STATUS WHERE Variable_name IN " +
+            "('Prepared_stmt_count', 'Com_stmt_prepare', 'Com_stmt_execute', 'Com_stmt_reprepare')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long refreshMillis;
+
+    private volatile Map<String, Double> status = Map.of();
+
+    private volatile long refreshedAt;
+
+    public MySqlStatementMetrics(JdbcTemplate jdbcTemplate, long refreshMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshMillis = refreshMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mysql.statements.prepared", this, metrics -> metrics.value("Prepared_stmt_count"))
+                .description("Server side prepared statements currently open")
+                .register(registry);
+        FunctionCounter.builder("mysql.statements.prepare", this, metrics -> metrics.value("Com_stmt_prepare"))
+                .description("Statements prepared by the server, grows on every statement cache miss")
+                .register(registry);
+        FunctionCounter.builder("mysql.statements.execute", this, metrics -> metrics.value("Com_stmt_execute"))
+                .description("Prepared statement executions")
+                .register(registry);
+        FunctionCounter.builder("mysql.statements.reprepare", this, metrics -> metrics.value("Com_stmt_reprepare"))
+                .description("Prepared statements the server had to prepare again")
+                .register(registry);
+    }
+
+    private double value(String name) {
+        refreshIfStale();
+        return status.getOrDefault(name, Double.NaN);
+    }
+
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - refreshedAt < refreshMillis) {
+            return;
+        }
+        refreshedAt = now;
+
+        Map<String, Double> values = new HashMap<>();
+        jdbcTemplate.query(QUERY, resultSet -> {
+            values.put(resultSet.getString(1), resultSet.getDouble(2));
+        });
+        status = values;
+    }
+}
@@ -0,0 +1,26 @@
+package programmerzamannow.springdata.jpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@Profile("prod")
+public class ProductionMonitoringConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sql-log.sample-rate")
+    public HibernatePropertiesCustomizer sampledStatementLoggerCustomizer(@Value("${app.sql-log.sample-rate}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledStatementLogger(sampleRate));
+    }
+
+    @Bean
+    public MySqlStatementMetrics mySqlStatementMetrics(JdbcTemplate jdbcTemplate) {
+        return new MySqlStatementMetrics(jdbcTemplate, 10_000);
+    }
+}
@@ -0,0 +1,89 @@
+package programmerzamannow.springdata.jpa.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the replicas and everything else to the primary. The
+ * primary pool is bound from {@code spring.datasource.*} as usual, every replica pool copies
+ * {@code app.datasource.replicas.hikari.*}.
+ * <p>
+ * The JPA transaction manager marks the connection read only before the first statement runs, the lazy proxy only
+ * picks a pool at that point, so a read only transaction never touches the primary and a read write transaction
+ * never touches a replica. Reads inside a read write transaction join it and stay on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadWriteRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replicas.hikari")
+    public HikariConfig replicaHikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                      @Qualifier("replicaHikariConfig") HikariConfig replicaHikariConfig,
+                                                      DataSourceProperties dataSourceProperties,
+                                                      ReplicaDataSourceProperties replicaProperties,
+                                                      MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Instance> instances = replicaProperties.getInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            ReplicaDataSourceProperties.Instance instance = instances.get(i);
+            String name = "replica-" + i;
+
+            HikariConfig config = new HikariConfig();
+            replicaHikariConfig.copyStateTo(config);
+            config.setPoolName(name);
+            config.setJdbcUrl(instance.getUrl());
+            config.setUsername(instance.getUsername() != null ? instance.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(instance.getPassword() != null ? instance.getPassword() : dataSourceProperties.determinePassword());
+            config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            config.setReadOnly(true);
+            // a replica that is down must not stop the startup, the lag check keeps it out of rotation until it is up
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, new HikariDataSource(config));
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                replicaProperties.getMaxLag().toSeconds(),
+                replicaProperties.getLagQuery(),
+                replicaProperties.getLagColumn(),
+                replicaProperties.getCheckInterval().toMillis());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,45 @@
+package programmerzamannow.springdata.jpa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("app.datasource.replicas")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled;
+
+    /**
+     * Replica JDBC urls, username and password default to the primary ones.
+     */
+    private List<Instance> instances = new ArrayList<>();
+
+    /**
+     * A replica further behind than this is skipped until it catches up.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /**
+     * Returns one row with the lag in seconds in {@link #lagColumn}, no row means the server is not replicating
+     * and counts as up to date, a null lag means replication is stopped.
+     */
+    private String lagQuery = "SHOW REPLICA STATUS";
+
+    private String lagColumn = "Seconds_Behind_Source";
+
+    @Data
+    public static class Instance {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
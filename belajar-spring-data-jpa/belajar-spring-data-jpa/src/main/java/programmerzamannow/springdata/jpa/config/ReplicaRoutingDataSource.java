@@ -0,0 +1,183 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from the replicas round robin, skipping the ones that lag more than {@code maxLagSeconds}
+ * or fail the lag check, and from the primary when none is usable. Replicas start as unusable until their first
+ * check passes, so a replica that is down at startup never serves a read.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long maxLagSeconds;
+
+    private final String lagQuery;
+
+    private final String lagColumn;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile List<Replica> healthy = List.of();
+
+    private volatile Counter primaryCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagSeconds,
+                                    String lagQuery, String lagColumn, long checkIntervalMillis) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+        this.scheduler.scheduleWithFixedDelay(this::checkReplicas, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        primaryCounter = Counter.builder("db.routing.connections")
+                .tag("target", "primary")
+                .description("Read only connections handed out, by target")
+                .register(registry);
+        for (Replica replica : replicas) {
+            replica.counter = Counter.builder("db.routing.connections")
+                    .tag("target", replica.name)
+                    .description("Read only connections handed out, by target")
+                    .register(registry);
+            Gauge.builder("db.replica.lag", replica, value -> value.lagSeconds)
+                    .tag("replica", replica.name)
+                    .description("Replication lag in seconds, NaN when unknown")
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        List<Replica> candidates = healthy;
+        if (candidates.isEmpty()) {
+            increment(primaryCounter);
+            return connector.connect(primary);
+        }
+        Replica replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        try {
+            Connection connection = connector.connect(replica.dataSource);
+            increment(replica.counter);
+            return connection;
+        } catch (SQLException exception) {
+            log.warn("Replica {} refused a connection, reading from the primary", replica.name, exception);
+            markUnhealthy(replica);
+            increment(primaryCounter);
+            return connector.connect(primary);
+        }
+    }
+
+    /**
+     * Names of the replicas currently serving reads.
+     */
+    public List<String> healthyReplicas() {
+        return healthy.stream().map(replica -> replica.name).toList();
+    }
+
+    public void checkReplicas() {
+        List<Replica> usable = new ArrayList<>();
+        for (Replica replica : replicas) {
+            replica.lagSeconds = lagSeconds(replica);
+            if (replica.lagSeconds <= maxLagSeconds) {
+                usable.add(replica);
+            }
+        }
+        healthy = List.copyOf(usable);
+    }
+
+    private double lagSeconds(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return 0;
+            }
+            long lag = resultSet.getLong(lagColumn);
+            return resultSet.wasNull() ? Double.NaN : lag;
+        } catch (SQLException | RuntimeException exception) {
+            log.warn("Lag check failed on replica {}", replica.name, exception);
+            return Double.NaN;
+        }
+    }
+
+    private synchronized void markUnhealthy(Replica replica) {
+        healthy = healthy.stream().filter(candidate -> candidate != replica).toList();
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private static class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile double lagSeconds = Double.NaN;
+
+        private volatile Counter counter;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
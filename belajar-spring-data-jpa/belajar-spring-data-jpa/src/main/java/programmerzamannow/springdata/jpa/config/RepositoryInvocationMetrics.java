@@ -0,0 +1,165 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts what Hibernate does while a repository method runs and publishes it per repository method. The
+ * {@link #interceptor(Class) interceptor} is the outermost advice on every repository proxy, the Hibernate hooks in
+ * {@link RepositoryMetricsSessionListener} and {@link RepositoryMetricsIntegrator} count statements, loaded entities
+ * and flushes for the current thread in between. Calls a repository makes to other repositories count towards the
+ * outer call.
+ * <p>
+ * Latency is already timed by Spring Boot as {@code spring.data.repository.invocations}, a call slower than
+ * {@code slowThreshold} or issuing more than {@code statementThreshold} statements is logged here with its counts,
+ * the latter usually being an N+1.
+ */
+@Slf4j
+public class RepositoryInvocationMetrics {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final long slowThresholdNanos;
+
+    private final int statementThreshold;
+
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryInvocationMetrics(MeterRegistry meterRegistry, Duration slowThreshold, int statementThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.statementThreshold = statementThreshold;
+    }
+
+    static void statementExecuted() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.entities++;
+        }
+    }
+
+    static void flushed() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.flushes++;
+        }
+    }
+
+    public MethodInterceptor interceptor(Class<?> repositoryInterface) {
+        String repository = repositoryInterface.getSimpleName();
+        return invocation -> invoke(repository, invocation);
+    }
+
+    private Object invoke(String repository, MethodInvocation invocation) throws Throwable {
+        if (CURRENT.get() != null) {
+            return invocation.proceed();
+        }
+
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            CURRENT.remove();
+            record(repository, invocation.getMethod(), counts, rows(invocation.getMethod(), result), duration);
+        }
+    }
+
+    private void record(String repository, Method method, Counts counts, long rows, long durationNanos) {
+        Meters methodMeters = meters.computeIfAbsent(method, key -> new Meters(repository, key.getName()));
+        methodMeters.statements.record(counts.statements);
+        methodMeters.entities.record(counts.entities);
+        methodMeters.flushes.record(counts.flushes);
+        if (rows >= 0) {
+            methodMeters.rows.record(rows);
+        }
+
+        if (durationNanos >= slowThresholdNanos || counts.statements > statementThreshold) {
+            log.warn("Slow repository call {}.{} took {} ms, statements={} entities={} flushes={} rows={}",
+                    repository, method.getName(), durationNanos / 1_000_000,
+                    counts.statements, counts.entities, counts.flushes, rows);
+        }
+    }
+
+    /**
+     * Rows in the returned value, -1 when the method does not return rows or streams them lazily.
+     */
+    private long rows(Method method, Object result) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class || type == boolean.class || type == Boolean.class
+                || Number.class.isAssignableFrom(type) || type.isPrimitive()
+                || java.util.stream.BaseStream.class.isAssignableFrom(type)) {
+            return -1;
+        } else if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        } else if (result instanceof Window<?> window) {
+            return window.size();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return result != null ? 1 : 0;
+    }
+
+    private static class Counts {
+
+        private int statements;
+
+        private int entities;
+
+        private int flushes;
+    }
+
+    private class Meters {
+
+        private final DistributionSummary statements;
+
+        private final DistributionSummary entities;
+
+        private final DistributionSummary flushes;
+
+        private final DistributionSummary rows;
+
+        private Meters(String repository, String method) {
+            statements = summary("repository.statements", "SQL statements and batches executed per call", repository, method);
+            entities = summary("repository.entities.loaded", "Entities loaded per call", repository, method);
+            flushes = summary("repository.flushes", "Flushes per call", repository, method);
+            rows = summary("repository.rows", "Rows returned per call", repository, method);
+        }
+
+        private DistributionSummary summary(String name, String description, String repository, String method) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.repository.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryMetricsConfiguration {
+
+    @Bean
+    public RepositoryInvocationMetrics repositoryInvocationMetrics(MeterRegistry meterRegistry,
+                                                                   @Value("${app.repository.metrics.slow-threshold:500ms}") Duration slowThreshold,
+                                                                   @Value("${app.repository.metrics.statement-threshold:20}") int statementThreshold) {
+        return new RepositoryInvocationMetrics(meterRegistry, slowThreshold, statementThreshold);
+    }
+
+    /**
+     * Puts the interceptor in front of every other advice on the repository proxies, so the flush on commit of a
+     * repository managed transaction is counted too.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<RepositoryInvocationMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0,
+                                    metrics.getObject().interceptor(repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer repositoryMetricsHibernateCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                RepositoryMetricsSessionListener.class.getName());
+    }
+
+    @Bean
+    public RepositoryMetricsIntegrator repositoryMetricsIntegrator() {
+        return new RepositoryMetricsIntegrator();
+    }
+}
@@ -0,0 +1,20 @@
+package programmerzamannow.springdata.jpa.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Registered for every session through {@code hibernate.session.events.auto}. A JDBC batch counts as one statement,
+ * it is one round trip to the database.
+ */
+public class RepositoryMetricsSessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RepositoryInvocationMetrics.statementExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RepositoryInvocationMetrics.statementExecuted();
+    }
+}
@@ -0,0 +1,59 @@
+package programmerzamannow.springdata.jpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import programmerzamannow.springdata.jpa.coalescing.CoalescingIntegrator;
+import programmerzamannow.springdata.jpa.coalescing.RequestCoalescer;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.repository.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestCoalescingConfiguration {
+
+    @Bean
+    public RequestCoalescer requestCoalescer(MeterRegistry meterRegistry,
+                                             @Value("${app.repository.coalescing.window:100ms}") Duration window) {
+        return new RequestCoalescer(meterRegistry, window);
+    }
+
+    /**
+     * Ordered, so it runs before {@link RepositoryMetricsConfiguration#repositoryMetricsPostProcessor} and the
+     * metrics advice ends up outside this one: a call served by another call's query is still counted, with no
+     * statements.
+     */
+    @Bean
+    public static BeanPostProcessor requestCoalescingPostProcessor(ObjectProvider<RequestCoalescer> requestCoalescer) {
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0,
+                                    requestCoalescer.getObject().interceptor(repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public CoalescingIntegrator coalescingIntegrator(RequestCoalescer requestCoalescer) {
+        return new CoalescingIntegrator(requestCoalescer);
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+
+        @Override
+        default int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package programmerzamannow.springdata.jpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a random sample of the SQL Hibernate sends. The logger is bound to an async appender in
+ * {@code logback-spring.xml}, so the request thread only pays for the enqueue.
+ */
+public class SampledStatementLogger implements StatementInspector {
+
+    private static final Logger log = LoggerFactory.getLogger("programmerzamannow.springdata.jpa.sql");
+
+    private final double sampleRate;
+
+    public SampledStatementLogger(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && log.isInfoEnabled()) {
+            log.info(sql);
+        }
+        return sql;
+    }
+}
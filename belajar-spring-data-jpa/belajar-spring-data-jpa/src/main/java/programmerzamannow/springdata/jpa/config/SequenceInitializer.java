@@ -0,0 +1,81 @@
+package programmerzamannow.springdata.jpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import programmerzamannow.springdata.jpa.shard.ShardContext;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+import programmerzamannow.springdata.jpa.shard.ShardedSequenceGenerator;
+
+import java.util.Set;
+
+/**
+ * Moves {@code category_seq} and {@code product_seq} past the ids already in use on startup. Rows inserted while the
+ * ids came from {@code AUTO_INCREMENT}, or by hand, are not known to the sequences, {@code ddl-auto=update} and
+ * {@code V1__baseline.sql} start them at 1, and the first inserts would collide with the existing rows.
+ * <p>
+ * The pooled optimizer takes the value read and the {@code allocationSize - 1} ids below it, so the sequence is
+ * set to {@code max(id) + allocationSize + 1}. Sequences already beyond that are left alone. Every shard has its own
+ * {@code product_seq}, see {@link ShardedSequenceGenerator}, it is compared with the ids without the shard bits. A
+ * schema generated by {@code ddl-auto=create} is empty, nothing to do then. With lazy initialization, as in the
+ * fast profile, this bean is never created and {@code V2__seed_sequences.sql} does the same when migrating.
+ */
+@Slf4j
+@Component
+public class SequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Set<String> CREATE = Set.of("create", "create-drop");
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShardRouter shardRouter;
+
+    public SequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                               ShardRouter shardRouter) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Object ddlAuto = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+        if (ddlAuto != null && CREATE.contains(ddlAuto.toString())) {
+            return;
+        }
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+
+        seed(dialect, "category_seq", "SELECT MAX(id) FROM categories");
+        long shardBase = 1L << ShardedSequenceGenerator.SHARD_SHIFT;
+        shardRouter.shards().forEach(shard -> ShardContext.run(shard, () ->
+                seed(dialect, "product_seq", "SELECT MAX(MOD(id, " + shardBase + ")) FROM product")));
+    }
+
+    private void seed(Dialect dialect, String sequence, String maxIdQuery) {
+        Long maxId = jdbcTemplate.queryForObject(maxIdQuery, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long next = maxId + ALLOCATION_SIZE + 1;
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            Long current = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+            if (current != null && current - ALLOCATION_SIZE + 1 > maxId) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+        } else if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", next, next) == 0) {
+            return;
+        }
+        log.info("Moved {} to {}, past the existing id {}", sequence, next, maxId);
+    }
+}
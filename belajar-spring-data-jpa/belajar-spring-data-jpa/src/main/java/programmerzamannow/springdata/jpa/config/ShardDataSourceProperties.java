@@ -0,0 +1,36 @@
+package programmerzamannow.springdata.jpa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("app.datasource.shards")
+public class ShardDataSourceProperties {
+
+    private boolean enabled;
+
+    /**
+     * Shards 1 to n, shard 0 is {@code spring.datasource}. Username and password default to the ones of shard 0.
+     * Number and order decide which categories a shard holds.
+     */
+    private List<Instance> instances = new ArrayList<>();
+
+    /**
+     * How long a query sent to every shard waits for the slowest one.
+     */
+    private Duration fanOutTimeout = Duration.ofSeconds(5);
+
+    @Data
+    public static class Instance {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,83 @@
+package programmerzamannow.springdata.jpa.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Products are split over several databases by category, see {@link ShardRouter}. Shard 0 is the home database,
+ * bound from {@code spring.datasource.*} as usual, which also holds every other table. Each shard pool copies
+ * {@code app.datasource.shards.hikari.*}. With sharding disabled the router knows one shard and nothing else
+ * changes.
+ * <p>
+ * Sharding and the read replicas of {@link ReadWriteRoutingConfiguration} both replace the {@code dataSource} bean
+ * and cannot be enabled together.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardDataSourceProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardRouter shardRouter(ShardDataSourceProperties shardProperties, MeterRegistry meterRegistry) {
+        int shardCount = shardProperties.isEnabled() ? shardProperties.getInstances().size() + 1 : 1;
+        return new ShardRouter(shardCount, shardProperties.getFanOutTimeout(), meterRegistry);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.datasource.shards.enabled", havingValue = "true")
+    public static class ShardDataSourceConfiguration {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource homeDataSource(DataSourceProperties dataSourceProperties) {
+            return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        }
+
+        @Bean
+        @ConfigurationProperties("app.datasource.shards.hikari")
+        public HikariConfig shardHikariConfig() {
+            return new HikariConfig();
+        }
+
+        @Bean
+        @Primary
+        public ShardRoutingDataSource dataSource(@Qualifier("homeDataSource") DataSource homeDataSource,
+                                                 @Qualifier("shardHikariConfig") HikariConfig shardHikariConfig,
+                                                 DataSourceProperties dataSourceProperties,
+                                                 ShardDataSourceProperties shardProperties,
+                                                 MeterRegistry meterRegistry) {
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(homeDataSource);
+            List<ShardDataSourceProperties.Instance> instances = shardProperties.getInstances();
+            for (int i = 0; i < instances.size(); i++) {
+                ShardDataSourceProperties.Instance instance = instances.get(i);
+
+                HikariConfig config = new HikariConfig();
+                shardHikariConfig.copyStateTo(config);
+                config.setPoolName("shard-" + (i + 1));
+                config.setJdbcUrl(instance.getUrl());
+                config.setUsername(instance.getUsername() != null ? instance.getUsername() : dataSourceProperties.determineUsername());
+                config.setPassword(instance.getPassword() != null ? instance.getPassword() : dataSourceProperties.determinePassword());
+                config.setDriverClassName(DatabaseDriver.fromJdbcUrl(instance.getUrl()).getDriverClassName());
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+                shards.add(new HikariDataSource(config));
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+    }
+}
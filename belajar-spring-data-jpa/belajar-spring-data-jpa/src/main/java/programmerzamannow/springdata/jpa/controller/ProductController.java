@@ -0,0 +1,52 @@
+package programmerzamannow.springdata.jpa.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import programmerzamannow.springdata.jpa.service.ChangeHistoryService;
+import programmerzamannow.springdata.jpa.service.PriceSnapshotService;
+import programmerzamannow.springdata.jpa.service.ShardedProductService;
+
+import java.util.List;
+
+@RestController
+public class ProductController {
+
+    @Autowired
+    private PriceSnapshotService priceSnapshotService;
+
+    @Autowired
+    private ChangeHistoryService changeHistoryService;
+
+    @Autowired
+    private ShardedProductService shardedProductService;
+
+    /**
+     * Servlet and JPA counterpart of {@code ReactiveProductController.productsByCategory}, the whole list at once.
+     */
+    @GetMapping("/api/categories/{name}/products")
+    public List<ProductSummary> productsByCategory(@PathVariable("name") String name) {
+        return shardedProductService.findAllSummaryByCategoryName(name);
+    }
+
+    @GetMapping("/api/products/{id}/price")
+    public ProductPrice price(@PathVariable("id") Long id) {
+        return priceSnapshotService.findPrice(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+    }
+
+    @GetMapping("/api/products/{id}/price-history")
+    public KeysetPage<ChangeHistory> priceHistory(@PathVariable("id") Long id,
+                                                  @RequestParam(value = "token", required = false) String token,
+                                                  @RequestParam(value = "size", defaultValue = "20") int size) {
+        return changeHistoryService.findPriceHistory(id, token, size);
+    }
+}
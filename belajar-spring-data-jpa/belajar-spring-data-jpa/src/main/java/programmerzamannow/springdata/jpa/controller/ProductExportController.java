@@ -0,0 +1,50 @@
+package programmerzamannow.springdata.jpa.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.service.ProductExportService;
+
+import java.util.Locale;
+
+@RestController
+public class ProductExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @GetMapping("/api/categories/{categoryId}/products/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable("categoryId") Long categoryId,
+                                                        @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
+
+        ProductExportService.Format exportFormat;
+        try {
+            exportFormat = ProductExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format " + format);
+        }
+
+        String extension = exportFormat == ProductExportService.Format.CSV ? "csv" : "ndjson";
+        return ResponseEntity.ok()
+                .contentType(exportFormat == ProductExportService.Format.CSV ? new MediaType("text", "csv") : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products-" + categoryId + "." + extension + "\"")
+                .body(outputStream -> productExportService.export(category, exportFormat, outputStream));
+    }
+}
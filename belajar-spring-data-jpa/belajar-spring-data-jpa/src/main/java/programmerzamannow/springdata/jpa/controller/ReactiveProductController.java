@@ -0,0 +1,76 @@
+package programmerzamannow.springdata.jpa.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import programmerzamannow.springdata.jpa.model.CategorySummary;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import programmerzamannow.springdata.jpa.reactive.ReactiveCategoryRepository;
+import programmerzamannow.springdata.jpa.reactive.ReactiveProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read API on R2DBC next to the JPA endpoints. Lists are streamed as NDJSON, Spring MVC writes one element at a time
+ * and requests the next one once it is written, so a slow client slows the query down instead of filling memory.
+ * No request thread waits for the database meanwhile.
+ * <p>
+ * R2DBC only reads the home database, while products are sharded the product endpoints answer 501 instead of
+ * leaving out the other shards.
+ */
+@RestController
+public class ReactiveProductController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private ReactiveProductRepository reactiveProductRepository;
+
+    @Autowired
+    private ReactiveCategoryRepository reactiveCategoryRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @GetMapping(value = "/api/reactive/categories/{name}/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductSummary> productsByCategory(@PathVariable("name") String name) {
+        requireUnsharded();
+        return reactiveProductRepository.findAllSummaryByCategoryName(name);
+    }
+
+    @GetMapping(value = "/api/reactive/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductSummary> search(@RequestParam("name") String name,
+                                       @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        requireUnsharded();
+        return reactiveProductRepository.searchProductSummary("%" + name + "%", afterId, limit);
+    }
+
+    @GetMapping("/api/reactive/products/{id}/price")
+    public Mono<ProductPrice> price(@PathVariable("id") Long id) {
+        requireUnsharded();
+        return reactiveProductRepository.findPriceById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found")));
+    }
+
+    @GetMapping(value = "/api/reactive/categories", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CategorySummary> categories(@RequestParam(value = "name", defaultValue = "") String name) {
+        return reactiveCategoryRepository.findAllByNameLike("%" + name + "%");
+    }
+
+    private void requireUnsharded() {
+        if (shardRouter.shardCount() > 1) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Sharded products are only served by the JPA endpoints");
+        }
+    }
+}
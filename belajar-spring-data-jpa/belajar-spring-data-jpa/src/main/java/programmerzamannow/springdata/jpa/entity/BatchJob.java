@@ -0,0 +1,51 @@
+package programmerzamannow.springdata.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One run of {@link programmerzamannow.springdata.jpa.service.ProductBatchProcessor}. The product id range and the
+ * chunk size are fixed when the job is first started, so a resumed run cuts the same chunks again.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "batch_job")
+public class BatchJob {
+
+    @Id
+    private String name;
+
+    private Long firstId;
+
+    private Long lastId;
+
+    @Column(nullable = false)
+    private Integer chunkSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    public long getTotalChunks() {
+        return firstId == null ? 0 : (lastId - firstId) / chunkSize + 1;
+    }
+
+    public enum Status {
+        RUNNING, FAILED, COMPLETED
+    }
+}
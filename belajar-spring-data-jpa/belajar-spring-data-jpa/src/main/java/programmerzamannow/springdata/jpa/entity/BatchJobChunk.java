@@ -0,0 +1,45 @@
+package programmerzamannow.springdata.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint of one finished chunk, inserted in the same transaction as the work on the chunk. A chunk either has
+ * its row and its changes committed or neither, the unique key keeps two runs from committing the same chunk.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "batch_job_chunk", uniqueConstraints = @UniqueConstraint(
+        name = "batch_job_chunk_job_start_uk", columnNames = {"job_name", "chunk_start"}))
+public class BatchJobChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "chunk_start", nullable = false)
+    private Long chunkStart;
+
+    @Column(nullable = false)
+    private Long chunkEnd;
+
+    @Column(nullable = false)
+    private Integer products;
+
+    private Instant completedAt;
+}
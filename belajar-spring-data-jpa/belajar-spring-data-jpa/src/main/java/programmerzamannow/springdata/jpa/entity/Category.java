@@ -3,12 +3,18 @@ package programmerzamannow.springdata.jpa.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.w3c.dom.stylesheets.LinkStyle;
+import programmerzamannow.springdata.jpa.search.ProductAnalysisConfigurer;
 
 import java.util.Date;
 import java.util.List;
@@ -19,12 +25,21 @@ import java.util.List;
 @NoArgsConstructor
 @Table(name = "categories")
 @EntityListeners({AuditingEntityListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     private Long id;
 
+    @FullTextField(analyzer = ProductAnalysisConfigurer.NAME)
+    @FullTextField(
+            name = "name_autocomplete",
+            analyzer = ProductAnalysisConfigurer.AUTOCOMPLETE_INDEXING,
+            searchAnalyzer = ProductAnalysisConfigurer.AUTOCOMPLETE_SEARCH
+    )
     private String name;
 
     @CreatedDate
@@ -33,6 +48,8 @@ public class Category {
     @LastModifiedDate
     private Date lastModifiedDate;
 
-    @OneToMany(mappedBy = "category")
+    @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     List<Product> products;
 }
@@ -0,0 +1,48 @@
+package programmerzamannow.springdata.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Product count and price range of one category, kept up to date by
+ * {@link programmerzamannow.springdata.jpa.stats.CategoryStatsChanges} in the transaction that changes the products.
+ * Only ever written with SQL, never through the persistence context. {@code pricedCount} leaves out the products
+ * without a price, they are not part of {@code priceSum} either.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Immutable
+@Table(name = "category_stats")
+public class CategoryStats {
+
+    @Id
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long productCount;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long pricedCount;
+
+    @Column(nullable = false)
+    private Long priceSum;
+
+    private Long minPrice;
+
+    private Long maxPrice;
+
+    public Double getAveragePrice() {
+        return pricedCount == 0 ? null : (double) priceSum / pricedCount;
+    }
+}
@@ -0,0 +1,50 @@
+package programmerzamannow.springdata.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * One committed change of a tracked property, such as {@code Product.price} or {@code Category.name}. Written in
+ * batches by {@link programmerzamannow.springdata.jpa.history.ChangeHistoryBuffer} after the change committed, never
+ * through the persistence context.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Immutable
+@Table(name = "change_history", indexes = @Index(name = "change_history_entity_idx",
+        columnList = "entity_type, entity_id, property, changed_at, id"))
+public class ChangeHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private String property;
+
+    private String oldValue;
+
+    private String newValue;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
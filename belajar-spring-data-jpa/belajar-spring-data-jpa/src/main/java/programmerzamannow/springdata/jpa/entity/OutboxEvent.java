@@ -0,0 +1,61 @@
+package programmerzamannow.springdata.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A product or category change waiting to be published, inserted by
+ * {@link programmerzamannow.springdata.jpa.outbox.OutboxChanges} in the transaction that made the change and deleted
+ * by the relay once a sink took it.
+ * <p>
+ * The id is assigned at insert, not at commit, a transaction that inserted its event first may commit last. Ids
+ * only follow commit order for changes of one aggregate, whose transactions wait on each other's row lock, and
+ * relays running on several nodes may publish a smaller id after a bigger one. Consumers that need an order should
+ * track it per aggregate, not globally by id.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String aggregateType;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type eventType;
+
+    /**
+     * State after the change as JSON, {@code null} for deletes and for changes made by bulk statements, where
+     * consumers read the row themselves.
+     */
+    @Column(length = 2000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -3,7 +3,17 @@ package programmerzamannow.springdata.jpa.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
+import programmerzamannow.springdata.jpa.search.ProductAnalysisConfigurer;
+import programmerzamannow.springdata.jpa.shard.ShardedSequence;
+
+import java.time.Instant;
 
 @Entity
 @Data
@@ -15,17 +25,46 @@ import lombok.NoArgsConstructor;
                 query = "SELECT p FROM Product p WHERE p.name = :name"
         )
 })
+@NamedEntityGraph(
+        name = "Product.category",
+        attributeNodes = @NamedAttributeNode("category")
+)
+@Indexed(index = "product")
+@Table(indexes = {
+        @Index(name = "product_category_price_idx", columnList = "category_id, price"),
+        @Index(name = "product_modified_at_idx", columnList = "modified_at")
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence(name = "product_seq", allocationSize = 50)
     private Long id;
 
+    @FullTextField(analyzer = ProductAnalysisConfigurer.NAME)
+    @FullTextField(
+            name = "name_autocomplete",
+            analyzer = ProductAnalysisConfigurer.AUTOCOMPLETE_INDEXING,
+            searchAnalyzer = ProductAnalysisConfigurer.AUTOCOMPLETE_SEARCH
+    )
     private String name;
 
     private Long price;
 
-    @ManyToOne
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Set on every insert and update, bulk statements set it themselves. Lets other nodes catch their price
+     * snapshot up, see {@code PriceSnapshot}.
+     */
+    @UpdateTimestamp
+    private Instant modifiedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @IndexedEmbedded(includePaths = {"name", "name_autocomplete"})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "category_id", referencedColumnName = "id")
     private Category category;
 }
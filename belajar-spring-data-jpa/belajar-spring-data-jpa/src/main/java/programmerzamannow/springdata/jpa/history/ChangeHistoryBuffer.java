@@ -0,0 +1,353 @@
+package programmerzamannow.springdata.jpa.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory queue of committed history records, drained by one writer thread into {@code change_history}
+ * with JDBC batches, so the writing request only pays for a queue offer. When the queue is full, or a batch cannot
+ * be inserted, the records are appended to a spill file instead of being dropped or blocking the request. The spill
+ * file is replayed into the table once the writer is idle again, see {@link #replaySpill(boolean)}.
+ * <p>
+ * On shutdown the writer stops after the web server, everything still queued is written before the data source
+ * closes. Records offered after that go to the spill file and are replayed on the next start.
+ */
+@Slf4j
+@Component
+public class ChangeHistoryBuffer implements SmartLifecycle {
+
+    private static final String INSERT = """
+            INSERT INTO change_history (entity_type, entity_id, property, old_value, new_value, changed_at)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    private static final Duration MAX_REPLAY_BACKOFF = Duration.ofMinutes(5);
+
+    private final DataSource dataSource;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<ChangeHistory> queue;
+
+    private final int batchSize;
+
+    private final Duration pollInterval;
+
+    private final Path spillFile;
+
+    private final Path replayFile;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private final Counter written;
+
+    private final Counter spilled;
+
+    private volatile boolean running;
+
+    /**
+     * Failed replays in a row and when to try the next one, only used under {@code writeLock}.
+     */
+    private int replayFailures;
+
+    private long nextReplayNanos = System.nanoTime();
+
+    private Thread writer;
+
+    public ChangeHistoryBuffer(DataSource dataSource, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${app.history.capacity:10000}") int capacity,
+                               @Value("${app.history.batch-size:500}") int batchSize,
+                               @Value("${app.history.poll-interval:PT1S}") Duration pollInterval,
+                               @Value("${app.history.spill-file:data/change-history-spill.jsonl}") Path spillFile) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.spillFile = spillFile;
+        this.replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        this.written = meterRegistry.counter("history.records.written");
+        this.spilled = meterRegistry.counter("history.records.spilled");
+        Gauge.builder("history.buffer.size", queue, Collection::size).register(meterRegistry);
+    }
+
+    /**
+     * Queue the records of a committed transaction, never blocks on a full queue.
+     */
+    public void offer(List<ChangeHistory> records) {
+        List<ChangeHistory> rejected = new ArrayList<>();
+        for (ChangeHistory record : records) {
+            if (!running || !queue.offer(record)) {
+                rejected.add(record);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            spill(rejected);
+        }
+    }
+
+    /**
+     * Write everything queued and spilled so far on the calling thread, without waiting for the replay backoff.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<ChangeHistory> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+            replaySpill(true);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofVirtual().name("change-history-writer").start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped after the web server, which shuts down gracefully at {@code DEFAULT_PHASE - 1024} and stops at
+     * {@code DEFAULT_PHASE - 2048}, so the changes of the last requests are queued.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<ChangeHistory> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChangeHistory first = queue.poll(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                writeLock.lock();
+                try {
+                    if (first == null) {
+                        replaySpill(false);
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException exception) {
+                log.error("Change history writer failed, continuing", exception);
+            }
+        }
+    }
+
+    private void write(List<ChangeHistory> batch) {
+        try {
+            insert(batch);
+        } catch (SQLException exception) {
+            log.warn("Could not insert {} change history records, spilling them", batch.size(), exception);
+            spill(batch);
+        }
+    }
+
+    private void insert(List<ChangeHistory> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (ChangeHistory record : batch) {
+                    insert.setString(1, record.getEntityType());
+                    insert.setLong(2, record.getEntityId());
+                    insert.setString(3, record.getProperty());
+                    insert.setString(4, record.getOldValue());
+                    insert.setString(5, record.getNewValue());
+                    insert.setTimestamp(6, Timestamp.from(record.getChangedAt()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException exception) {
+                connection.rollback();
+                throw exception;
+            }
+        }
+        written.increment(batch.size());
+    }
+
+    private void spill(List<ChangeHistory> records) {
+        spillLock.lock();
+        try {
+            Files.createDirectories(spillFile.toAbsolutePath().getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (ChangeHistory record : records) {
+                    out.write(objectMapper.writeValueAsString(record));
+                    out.newLine();
+                }
+            }
+            spilled.increment(records.size());
+        } catch (IOException exception) {
+            log.error("Lost {} change history records, could not write {}: {}", records.size(), spillFile, records, exception);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * Insert the spilled records again. The spill file is renamed to the replay file first, records spilled meanwhile
+     * start a new spill file. The replay file is read in batches and only deleted once every batch committed. When a
+     * batch fails, the replay file is cut down to the records from that batch on, and the next replay waits twice as
+     * long as the last one, up to {@link #MAX_REPLAY_BACKOFF}, unless {@code force}d. Records of a replay that was
+     * cut short by a crash can be inserted twice. Lines that cannot be read, such as one half written by a crash, are
+     * logged and skipped.
+     */
+    private void replaySpill(boolean force) {
+        if (!force && System.nanoTime() - nextReplayNanos < 0) {
+            return;
+        }
+        try {
+            if (!claimSpillFile()) {
+                return;
+            }
+            long replayed = 0;
+            List<String> lines = new ArrayList<>(batchSize);
+            Path remainingFile = replayFile.resolveSibling(replayFile.getFileName() + ".tmp");
+            boolean failed = false;
+            try (BufferedReader in = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                do {
+                    line = in.readLine();
+                    if (line != null && !line.isBlank()) {
+                        lines.add(line);
+                    }
+                    if (lines.size() == batchSize || (line == null && !lines.isEmpty())) {
+                        try {
+                            insert(parse(lines));
+                        } catch (SQLException exception) {
+                            keepRemaining(lines, in, remainingFile);
+                            replayFailed(replayed, exception);
+                            failed = true;
+                            break;
+                        }
+                        replayed += lines.size();
+                        lines.clear();
+                    }
+                } while (line != null);
+            }
+            if (failed) {
+                Files.move(remainingFile, replayFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+            Files.delete(replayFile);
+            replayFailures = 0;
+            log.info("Replayed {} spilled change history records", replayed);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not replay " + replayFile, exception);
+        }
+    }
+
+    /**
+     * A replay file left by a failed replay or a crash is continued first, otherwise the spill file becomes the
+     * replay file.
+     */
+    private boolean claimSpillFile() throws IOException {
+        spillLock.lock();
+        try {
+            if (Files.exists(replayFile)) {
+                return true;
+            }
+            if (!Files.exists(spillFile)) {
+                return false;
+            }
+            Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private List<ChangeHistory> parse(List<String> lines) {
+        List<ChangeHistory> records = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try {
+                records.add(objectMapper.readValue(line, ChangeHistory.class));
+            } catch (IOException exception) {
+                log.error("Skipping unreadable spilled change history record: {}", line, exception);
+            }
+        }
+        return records;
+    }
+
+    private void keepRemaining(List<String> failedLines, BufferedReader in, Path remainingFile) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(remainingFile, StandardCharsets.UTF_8)) {
+            for (String line : failedLines) {
+                out.write(line);
+                out.newLine();
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+    }
+
+    private void replayFailed(long replayed, SQLException exception) {
+        replayFailures++;
+        long backoffNanos = Math.min(MAX_REPLAY_BACKOFF.toNanos(),
+                pollInterval.toNanos() << Math.min(replayFailures, 30));
+        nextReplayNanos = System.nanoTime() + backoffNanos;
+        log.warn("Replay of spilled change history failed after {} records, retrying in {} ms",
+                replayed, TimeUnit.NANOSECONDS.toMillis(backoffNanos), exception);
+    }
+}
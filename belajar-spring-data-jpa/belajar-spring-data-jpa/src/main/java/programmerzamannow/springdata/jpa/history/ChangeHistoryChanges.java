@@ -0,0 +1,42 @@
+package programmerzamannow.springdata.jpa.history;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import programmerzamannow.springdata.jpa.changes.SessionChanges;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * History records of one transaction, handed to the {@link ChangeHistoryBuffer} once the transaction committed and
+ * dropped when it rolled back. Nothing is written in the transaction itself.
+ */
+public class ChangeHistoryChanges extends SessionChanges {
+
+    private final ChangeHistoryBuffer buffer;
+
+    private final List<ChangeHistory> records = new ArrayList<>();
+
+    private ChangeHistoryChanges(ChangeHistoryBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static ChangeHistoryChanges of(SessionImplementor session, ChangeHistoryBuffer buffer) {
+        return of(session, ChangeHistoryChanges.class, () -> new ChangeHistoryChanges(buffer));
+    }
+
+    public void add(String entityType, Long entityId, String property, Object oldValue, Object newValue) {
+        records.add(new ChangeHistory(null, entityType, entityId, property,
+                oldValue == null ? null : oldValue.toString(),
+                newValue == null ? null : newValue.toString(),
+                Instant.now()));
+    }
+
+    @Override
+    protected void afterCompletion(boolean committed) {
+        if (committed && !records.isEmpty()) {
+            buffer.offer(records);
+        }
+    }
+}
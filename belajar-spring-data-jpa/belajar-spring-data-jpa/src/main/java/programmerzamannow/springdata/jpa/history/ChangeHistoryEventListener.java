@@ -0,0 +1,65 @@
+package programmerzamannow.springdata.jpa.history;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Tracks {@code Product.price} and {@code Category.name}, the value an entity is inserted with is its first history
+ * record. Bulk JPQL updates skip these events, their callers add the history to {@link ChangeHistoryChanges}
+ * themselves.
+ */
+public class ChangeHistoryEventListener implements PostInsertEventListener, PostUpdateEventListener {
+
+    private final ChangeHistoryBuffer buffer;
+
+    public ChangeHistoryEventListener(ChangeHistoryBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Product product && product.getPrice() != null) {
+            ChangeHistoryChanges.of(event.getSession(), buffer)
+                    .add(Product.class.getSimpleName(), product.getId(), "price", null, product.getPrice());
+        } else if (event.getEntity() instanceof Category category && category.getName() != null) {
+            ChangeHistoryChanges.of(event.getSession(), buffer)
+                    .add(Category.class.getSimpleName(), category.getId(), "name", null, category.getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            record(event, Product.class.getSimpleName(), product.getId(), "price", product.getPrice());
+        } else if (event.getEntity() instanceof Category category) {
+            record(event, Category.class.getSimpleName(), category.getId(), "name", category.getName());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Without an old state (a reattached detached instance) the new value is recorded with an unknown old value.
+     */
+    private void record(PostUpdateEvent event, String entityType, Long id, String property, Object newValue) {
+        Object oldValue = null;
+        if (event.getOldState() != null) {
+            oldValue = event.getOldState()[Arrays.asList(event.getPersister().getPropertyNames()).indexOf(property)];
+            if (Objects.equals(oldValue, newValue)) {
+                return;
+            }
+        }
+        ChangeHistoryChanges.of(event.getSession(), buffer).add(entityType, id, property, oldValue, newValue);
+    }
+}
@@ -0,0 +1,15 @@
+package programmerzamannow.springdata.jpa.model;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one call to {@code ProductBatchProcessor.run}, chunks that an earlier run already committed are
+ * counted as skipped and their products are not part of {@code products}.
+ */
+public record BatchJobReport(String jobName, long totalChunks, long processedChunks, long skippedChunks,
+                             long products, Duration elapsed) {
+
+    public double productsPerSecond() {
+        return elapsed.isZero() ? 0 : products * 1_000_000_000.0 / elapsed.toNanos();
+    }
+}
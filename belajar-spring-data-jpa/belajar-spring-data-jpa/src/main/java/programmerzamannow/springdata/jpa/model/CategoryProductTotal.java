@@ -0,0 +1,4 @@
+package programmerzamannow.springdata.jpa.model;
+
+public record CategoryProductTotal(Long categoryId, Long productCount, Long pricedCount, Long priceSum) {
+}
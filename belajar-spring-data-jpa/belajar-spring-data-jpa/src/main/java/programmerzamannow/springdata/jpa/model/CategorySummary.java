@@ -0,0 +1,4 @@
+package programmerzamannow.springdata.jpa.model;
+
+public record CategorySummary(Long id, String name) {
+}
@@ -0,0 +1,78 @@
+package programmerzamannow.springdata.jpa.model;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One keyset page plus an opaque token pointing after its last row. No count query is involved,
+ * a {@code null} token means there is nothing left to read.
+ */
+public record KeysetPage<T>(List<T> content, String nextToken) {
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    public static <T> KeysetPage<T> of(Window<T> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return new KeysetPage<>(window.getContent(), null);
+        }
+        return new KeysetPage<>(window.getContent(), encode(window.positionAt(window.size() - 1)));
+    }
+
+    /**
+     * Keys must not be {@code null}, keyset conditions cannot continue after a {@code null} value. Leave rows with
+     * {@code null} sort columns out of the query instead.
+     */
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        StringBuilder builder = new StringBuilder();
+        keyset.getKeys().forEach((key, value) -> {
+            if (value == null) {
+                throw new IllegalArgumentException("Keyset key " + key + " is null");
+            }
+            if (!builder.isEmpty()) {
+                builder.append(';');
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode(ScrollPosition)}, a {@code null} or blank token
+     * starts from the first row. Values are {@code Long} columns or {@code Instant} timestamps, told apart by their
+     * text.
+     */
+    public static KeysetScrollPosition decode(String token) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            for (String pair : decoded.split(";")) {
+                int separator = pair.indexOf('=');
+                keys.put(pair.substring(0, separator), value(pair.substring(separator + 1)));
+            }
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Invalid continuation token", exception);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object value(String text) {
+        return text.indexOf('T') < 0 ? Long.valueOf(text) : Instant.parse(text);
+    }
+}
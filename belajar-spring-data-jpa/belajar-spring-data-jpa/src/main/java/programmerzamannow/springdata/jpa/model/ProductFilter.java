@@ -0,0 +1,18 @@
+package programmerzamannow.springdata.jpa.model;
+
+import lombok.Builder;
+
+import java.util.Collection;
+
+/**
+ * Product search filter, every null field is left out of the query.
+ *
+ * @param nameLike     LIKE pattern on the product name
+ * @param categoryIds  product is in one of these categories
+ * @param categoryName exact category name
+ * @param minPrice     inclusive lower price bound
+ * @param maxPrice     inclusive upper price bound
+ */
+@Builder
+public record ProductFilter(String nameLike, Collection<Long> categoryIds, String categoryName, Long minPrice, Long maxPrice) {
+}
@@ -0,0 +1,4 @@
+package programmerzamannow.springdata.jpa.model;
+
+public record ProductPriceVersion(Long id, Long price, Long version) {
+}
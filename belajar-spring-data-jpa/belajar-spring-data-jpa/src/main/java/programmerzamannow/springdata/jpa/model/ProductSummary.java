@@ -0,0 +1,4 @@
+package programmerzamannow.springdata.jpa.model;
+
+public record ProductSummary(Long id, String name, Long price, String categoryName) {
+}
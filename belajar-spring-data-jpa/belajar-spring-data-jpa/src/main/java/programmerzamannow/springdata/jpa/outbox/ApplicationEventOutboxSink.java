@@ -0,0 +1,26 @@
+package programmerzamannow.springdata.jpa.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * In-process delivery, every event goes to the {@code @EventListener(OutboxEvent.class)} methods of this
+ * application.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "application-event", matchIfMissing = true)
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
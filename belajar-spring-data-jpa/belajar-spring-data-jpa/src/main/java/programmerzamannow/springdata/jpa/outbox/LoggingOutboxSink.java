@@ -0,0 +1,25 @@
+package programmerzamannow.springdata.jpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * One line per event on the {@code outbox} logger, route it to its own file for a log shipper to pick up.
+ */
+@Slf4j(topic = "outbox")
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "log")
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("{} {} {} {} {}", event.getId(), event.getAggregateType(), event.getAggregateId(),
+                    event.getEventType(), event.getPayload());
+        }
+    }
+}
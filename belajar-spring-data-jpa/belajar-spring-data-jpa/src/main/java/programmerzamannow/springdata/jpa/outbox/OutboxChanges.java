@@ -0,0 +1,59 @@
+package programmerzamannow.springdata.jpa.outbox;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import programmerzamannow.springdata.jpa.changes.SessionChanges;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change events of one transaction, inserted into {@code outbox_event} as one JDBC batch right before the
+ * transaction commits. The events commit or roll back together with the changes they describe.
+ */
+public class OutboxChanges extends SessionChanges {
+
+    private static final String INSERT = """
+            INSERT INTO outbox_event (aggregate_type, aggregate_id, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?)""";
+
+    private final List<OutboxEvent> events = new ArrayList<>();
+
+    private OutboxChanges() {
+    }
+
+    public static OutboxChanges of(SessionImplementor session) {
+        return of(session, OutboxChanges.class, OutboxChanges::new);
+    }
+
+    public void add(String aggregateType, Long aggregateId, OutboxEvent.Type type, String payload) {
+        events.add(new OutboxEvent(null, aggregateType, aggregateId, type, payload, Instant.now()));
+    }
+
+    @Override
+    protected void beforeCommit(SessionImplementor session) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (OutboxEvent event : events) {
+                insert.setString(1, event.getAggregateType());
+                insert.setLong(2, event.getAggregateId());
+                insert.setString(3, event.getEventType().name());
+                insert.setString(4, event.getPayload());
+                insert.setTimestamp(5, Timestamp.from(event.getCreatedAt()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException exception) {
+            throw new HibernateException("Could not insert into outbox_event", exception);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package programmerzamannow.springdata.jpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns every product and category insert, update and delete into an {@link OutboxChanges} event. The payload is
+ * the public state of the entity, for a product the category as its id so the category is never loaded for it.
+ * Bulk JPQL statements skip these events, their callers add the events themselves.
+ */
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final ObjectMapper objectMapper;
+
+    public OutboxEventListener(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.Type.CREATED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.Type.UPDATED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.Type.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, OutboxEvent.Type type) {
+        if (entity instanceof Product product) {
+            OutboxChanges.of(session).add(Product.class.getSimpleName(), product.getId(), type,
+                    type == OutboxEvent.Type.DELETED ? null : payload(product));
+        } else if (entity instanceof Category category) {
+            OutboxChanges.of(session).add(Category.class.getSimpleName(), category.getId(), type,
+                    type == OutboxEvent.Type.DELETED ? null : payload(category));
+        }
+    }
+
+    private String payload(Product product) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", product.getId());
+        payload.put("name", product.getName());
+        payload.put("price", product.getPrice());
+        payload.put("categoryId", categoryId(product.getCategory()));
+        payload.put("version", product.getVersion());
+        return json(payload);
+    }
+
+    private String payload(Category category) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", category.getId());
+        payload.put("name", category.getName());
+        return json(payload);
+    }
+
+    private String json(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException exception) {
+            throw new HibernateException("Could not write outbox payload", exception);
+        }
+    }
+
+    private Long categoryId(Category category) {
+        if (category instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getInternalIdentifier();
+        }
+        return category == null ? null : category.getId();
+    }
+}
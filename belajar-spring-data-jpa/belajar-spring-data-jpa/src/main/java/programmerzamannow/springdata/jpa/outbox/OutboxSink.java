@@ -0,0 +1,18 @@
+package programmerzamannow.springdata.jpa.outbox;
+
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Where {@link programmerzamannow.springdata.jpa.service.OutboxRelay} delivers the events, chosen with
+ * {@code app.outbox.sink}. Delivery is at least once: a batch is published before its rows are deleted, so a
+ * relay that dies in between publishes the batch again. Consumers drop events whose id they have already seen.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publish the events in id order, throw to have the whole batch retried on the next poll.
+     */
+    void publish(List<OutboxEvent> events);
+}
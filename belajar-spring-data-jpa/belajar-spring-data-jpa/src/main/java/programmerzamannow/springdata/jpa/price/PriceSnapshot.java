@@ -0,0 +1,320 @@
+package programmerzamannow.springdata.jpa.price;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Price of every product in a {@link PriceTable}, read without locks and without allocating. Committed product
+ * changes are written through {@link PriceSnapshotChanges}, a full {@link #refresh(Consumer)} builds a new table on
+ * the side and swaps it in with one volatile write. Changes committed while a refresh loads are also recorded and
+ * replayed onto the new table before the swap, the version of each entry keeps an older change from overwriting a
+ * newer one whichever order they arrive in.
+ * <p>
+ * Bulk statements do not say which prices they wrote, their products are {@link #invalidate(long) invalidated} and
+ * read from the database until the next refresh puts them back.
+ * <p>
+ * Changes committed by other nodes never pass through this one, {@link #catchUp(Duration, BiConsumer)} loads the
+ * rows modified since the watermark, the start of the last refresh or catch-up, minus an overlap for transactions
+ * still running at that moment and for clocks of the nodes not agreeing. Their deletes, and changes that took longer
+ * than the overlap to commit, wait for the next full refresh.
+ * <p>
+ * With {@code app.price-snapshot.storage=mapped} the table and its watermark live in {@code app.price-snapshot.file}
+ * and are served right after a restart with the prices of the last run, until the first catch-up brings in what
+ * changed in between. The default {@code direct} table starts empty and every lookup misses until the first
+ * refresh completed. Either way the table and the one
+ * being built count against {@code -XX:MaxDirectMemorySize} or the page cache, not the heap.
+ */
+@Slf4j
+@Component
+public class PriceSnapshot {
+
+    /**
+     * No entry for the id, the product is unknown to the snapshot, deleted or invalidated.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * The product exists without a price.
+     */
+    public static final long NO_PRICE = Long.MIN_VALUE + 1;
+
+    private static final long INVALIDATED = Long.MAX_VALUE;
+
+    public enum Storage {
+        DIRECT, MAPPED
+    }
+
+    /**
+     * Receives the rows of a refresh.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        void put(long id, Long price, long version);
+    }
+
+    private final Storage storage;
+
+    private final Path file;
+
+    private final Timer refreshTimer;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile PriceTable table;
+
+    /**
+     * Changes committed while a refresh loads, null when no refresh runs. Guarded by {@link #writeLock}.
+     */
+    private List<Entry> pending;
+
+    /**
+     * Epoch millisecond the table holds every change committed before, 0 when unknown. Guarded by
+     * {@link #writeLock}, also kept in the header of the table.
+     */
+    private long watermark;
+
+    public PriceSnapshot(MeterRegistry meterRegistry,
+                         @Value("${app.price-snapshot.storage:direct}") Storage storage,
+                         @Value("${app.price-snapshot.file:data/price-snapshot.bin}") Path file) {
+        this.storage = storage;
+        this.file = file;
+        this.refreshTimer = meterRegistry.timer("price.snapshot.refresh");
+        Gauge.builder("price.snapshot.size", this, PriceSnapshot::size).register(meterRegistry);
+        if (storage == Storage.MAPPED) {
+            table = PriceTable.open(file);
+            if (table != null) {
+                watermark = table.watermark();
+                log.info("Serving {} prices from {} as of {}", table.size(), file, Instant.ofEpochMilli(watermark));
+            }
+        }
+    }
+
+    /**
+     * Lock and allocation free.
+     *
+     * @return the price, {@link #NO_PRICE} or {@link #MISSING}
+     */
+    public long price(long id) {
+        PriceTable current = table;
+        return current == null ? MISSING : current.price(id);
+    }
+
+    public boolean isLoaded() {
+        return table != null;
+    }
+
+    public int size() {
+        PriceTable current = table;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * A committed insert or update, ignored when the snapshot already holds a newer version.
+     */
+    public void put(long id, Long price, long version) {
+        write(new Entry(id, price == null ? NO_PRICE : price, version));
+    }
+
+    /**
+     * A committed delete or bulk update, the id stays {@link #MISSING} until the next refresh.
+     */
+    public void invalidate(long id) {
+        write(new Entry(id, MISSING, INVALIDATED));
+    }
+
+    /**
+     * Build a new table from {@code source} and swap it in. Recording of concurrent changes starts before
+     * {@code source} is called, so its transaction may begin inside it. Refreshes run one at a time.
+     */
+    public void refresh(Consumer<Loader> source) {
+        refreshLock.lock();
+        try {
+            long start = System.nanoTime();
+            long startMilli = System.currentTimeMillis();
+            int capacity;
+            writeLock.lock();
+            try {
+                pending = new ArrayList<>();
+                capacity = PriceTable.capacityFor(size());
+            } finally {
+                writeLock.unlock();
+            }
+
+            TableLoader loader = new TableLoader(newTable(capacity));
+            try {
+                source.accept(loader);
+                writeLock.lock();
+                try {
+                    pending.forEach(loader::put);
+                    loader.table.watermark(startMilli);
+                    publish(loader.table);
+                    watermark = startMilli;
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (RuntimeException exception) {
+                discard(loader.table);
+                throw exception;
+            }
+            refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("Price snapshot refreshed with {} products in {} ms", loader.table.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            writeLock.lock();
+            pending = null;
+            writeLock.unlock();
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Load the rows {@code source} finds modified since the watermark minus {@code overlap} and move the watermark to
+     * the start of this call. Does nothing before the first refresh, a table without a watermark needs a full one.
+     */
+    public void catchUp(Duration overlap, BiConsumer<Instant, Loader> source) {
+        refreshLock.lock();
+        try {
+            long since;
+            writeLock.lock();
+            try {
+                if (table == null || watermark == 0) {
+                    return;
+                }
+                since = watermark;
+            } finally {
+                writeLock.unlock();
+            }
+            long startMilli = System.currentTimeMillis();
+            source.accept(Instant.ofEpochMilli(since).minus(overlap), this::put);
+            writeLock.lock();
+            try {
+                watermark = startMilli;
+                table.watermark(startMilli);
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        PriceTable current = table;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    private void write(Entry entry) {
+        writeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(entry);
+            }
+            if (table != null) {
+                PriceTable current = table;
+                if (current.isFull()) {
+                    PriceTable bigger = grow(current);
+                    publish(bigger);
+                    current = bigger;
+                }
+                current.put(entry.id(), entry.price(), entry.version());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Called with the write lock held.
+     */
+    private void publish(PriceTable next) {
+        if (next.file() != null) {
+            next.moveTo(file);
+        }
+        table = next;
+    }
+
+    private PriceTable grow(PriceTable current) {
+        PriceTable bigger = newTable(current.capacity() * 2);
+        current.copyTo(bigger);
+        bigger.watermark(current.watermark());
+        return bigger;
+    }
+
+    private PriceTable newTable(int capacity) {
+        if (storage == Storage.DIRECT) {
+            return PriceTable.allocate(capacity);
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            return PriceTable.create(Files.createTempFile(file.toAbsolutePath().getParent(), "price-snapshot", ".tmp"), capacity);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not create a price table next to " + file, exception);
+        }
+    }
+
+    /**
+     * Delete the file of a table that was never published.
+     */
+    private void discard(PriceTable unpublished) {
+        if (unpublished.file() != null && !unpublished.file().equals(file)) {
+            try {
+                Files.deleteIfExists(unpublished.file());
+            } catch (IOException exception) {
+                log.warn("Could not delete {}", unpublished.file(), exception);
+            }
+        }
+    }
+
+    private record Entry(long id, long price, long version) {
+    }
+
+    /**
+     * Fills a table nobody reads yet, growing it as needed.
+     */
+    private class TableLoader implements Loader {
+
+        private PriceTable table;
+
+        private TableLoader(PriceTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public void put(long id, Long price, long version) {
+            put(new Entry(id, price == null ? NO_PRICE : price, version));
+        }
+
+        private void put(Entry entry) {
+            if (table.isFull()) {
+                PriceTable bigger = grow(table);
+                discard(table);
+                table = bigger;
+            }
+            table.put(entry.id(), entry.price(), entry.version());
+        }
+    }
+}
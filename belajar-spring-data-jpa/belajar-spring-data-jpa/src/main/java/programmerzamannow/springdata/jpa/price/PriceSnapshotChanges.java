@@ -0,0 +1,45 @@
+package programmerzamannow.springdata.jpa.price;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import programmerzamannow.springdata.jpa.changes.SessionChanges;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price changes of one transaction, written to the {@link PriceSnapshot} once the transaction committed and dropped
+ * when it rolled back, so a rolled back change is never served. Only changes made on this node pass through here,
+ * those of other nodes reach the snapshot with its next catch-up, see {@link PriceSnapshot}.
+ */
+public class PriceSnapshotChanges extends SessionChanges {
+
+    private final PriceSnapshot snapshot;
+
+    private final List<Runnable> changes = new ArrayList<>();
+
+    private PriceSnapshotChanges(PriceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public static PriceSnapshotChanges of(SessionImplementor session, PriceSnapshot snapshot) {
+        return of(session, PriceSnapshotChanges.class, () -> new PriceSnapshotChanges(snapshot));
+    }
+
+    public void put(Long id, Long price, Long version) {
+        changes.add(() -> snapshot.put(id, price, version));
+    }
+
+    /**
+     * For deletes and bulk statements that do not read the new price.
+     */
+    public void invalidate(Long id) {
+        changes.add(() -> snapshot.invalidate(id));
+    }
+
+    @Override
+    protected void afterCompletion(boolean committed) {
+        if (committed) {
+            changes.forEach(Runnable::run);
+        }
+    }
+}
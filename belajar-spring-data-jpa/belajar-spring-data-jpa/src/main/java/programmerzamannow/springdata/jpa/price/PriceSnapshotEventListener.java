@@ -0,0 +1,56 @@
+package programmerzamannow.springdata.jpa.price;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+/**
+ * Keeps the {@link PriceSnapshot} in step with product inserts, updates and deletes. The version is taken from the
+ * state that was written, the entity may not carry it yet. Bulk JPQL statements skip these events, their callers
+ * invalidate the ids themselves.
+ */
+public class PriceSnapshotEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final PriceSnapshot snapshot;
+
+    public PriceSnapshotEventListener(PriceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            PriceSnapshotChanges.of(event.getSession(), snapshot)
+                    .put(product.getId(), product.getPrice(), version(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            PriceSnapshotChanges.of(event.getSession(), snapshot)
+                    .put(product.getId(), product.getPrice(), version(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            PriceSnapshotChanges.of(event.getSession(), snapshot).invalidate(product.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private Long version(EntityPersister persister, Object[] state) {
+        return (Long) state[persister.getVersionProperty()];
+    }
+}
@@ -0,0 +1,253 @@
+package programmerzamannow.springdata.jpa.price;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open addressing {@code id -> (price, version)} table with linear probing, outside the Java heap in a direct or
+ * memory-mapped buffer. A slot is three longs, the key {@code 0} marks a free slot, so product ids must be greater
+ * than 0. Entries are never removed, a deleted product keeps its slot with {@link PriceSnapshot#MISSING} as price.
+ * <p>
+ * One writer at a time, see {@link PriceSnapshot}, readers need no lock. A new key is published by writing the
+ * price and version first and the key last with release semantics, a reader that sees the key with acquire
+ * semantics sees its price. The capacity is fixed, the writer copies into a bigger table before it is half full, so
+ * a probe always ends at a free slot.
+ * <p>
+ * A mapped table starts with a header holding a magic number, the capacity and the watermark of the snapshot, so it
+ * can be opened again after a restart and caught up from there. One buffer is limited to 2 GB, about 33 million products.
+ */
+final class PriceTable {
+
+    static final int MIN_CAPACITY = 1024;
+
+    private static final long MAGIC = 0x5052_4943_4531_0001L;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int SLOT_BYTES = 24;
+
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES);
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+
+    private final int mask;
+
+    private Path file;
+
+    private int size;
+
+    private PriceTable(ByteBuffer buffer, int capacity, Path file) {
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+        this.file = file;
+    }
+
+    /**
+     * Off-heap table, freed by the garbage collector once the table is unreachable.
+     */
+    static PriceTable allocate(int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        return new PriceTable(buffer, capacity, null);
+    }
+
+    /**
+     * Empty table mapped to a new file, an existing file is replaced.
+     */
+    static PriceTable create(Path file, int capacity) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.deleteIfExists(file);
+            MappedByteBuffer buffer = map(file, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(8, capacity);
+            return new PriceTable(buffer, capacity, file);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not create price table " + file, exception);
+        }
+    }
+
+    /**
+     * Table written by an earlier run, or null when the file does not exist or is not a price table.
+     */
+    static PriceTable open(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            long bytes = Files.size(file);
+            if (bytes < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = map(file, bytes);
+            long capacity = buffer.getLong(8);
+            if (buffer.getLong(0) != MAGIC || Long.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                    || bytes != HEADER_BYTES + capacity * SLOT_BYTES) {
+                return null;
+            }
+            PriceTable table = new PriceTable(buffer, (int) capacity, file);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (table.key(slot) != 0) {
+                    table.size++;
+                }
+            }
+            return table;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not open price table " + file, exception);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        }
+    }
+
+    /**
+     * Smallest capacity that stays at most half full with {@code entries} entries.
+     */
+    static int capacityFor(long entries) {
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("A price table holds at most " + MAX_CAPACITY / 2 + " products, not " + entries);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Lock and allocation free.
+     *
+     * @return the price, or {@link PriceSnapshot#MISSING} when the id has no entry
+     */
+    long price(long id) {
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            long key = (long) LONG.getAcquire(buffer, offset(slot));
+            if (key == 0) {
+                return PriceSnapshot.MISSING;
+            }
+            if (key == id) {
+                return (long) LONG.getAcquire(buffer, offset(slot) + 8);
+            }
+        }
+    }
+
+    /**
+     * Write the entry unless the table already holds a newer version of it. Writers must hold the lock of the
+     * snapshot and check {@link #isFull()} first.
+     */
+    void put(long id, long price, long version) {
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            long key = key(slot);
+            if (key == id) {
+                if ((long) LONG.get(buffer, offset(slot) + 16) <= version) {
+                    LONG.set(buffer, offset(slot) + 16, version);
+                    LONG.setRelease(buffer, offset(slot) + 8, price);
+                }
+                return;
+            }
+            if (key == 0) {
+                LONG.set(buffer, offset(slot) + 16, version);
+                LONG.set(buffer, offset(slot) + 8, price);
+                LONG.setRelease(buffer, offset(slot), id);
+                size++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * True when one more entry would make the table more than half full.
+     */
+    boolean isFull() {
+        return (size + 1) * 2L > capacity();
+    }
+
+    /**
+     * Copy every entry into {@code target}, which keeps its newer versions.
+     */
+    void copyTo(PriceTable target) {
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = key(slot);
+            if (key != 0) {
+                target.put(key, (long) LONG.get(buffer, offset(slot) + 8), (long) LONG.get(buffer, offset(slot) + 16));
+            }
+        }
+    }
+
+    /**
+     * Epoch millisecond the entries are complete up to, see {@link PriceSnapshot#catchUp}, 0 when unknown.
+     */
+    long watermark() {
+        return buffer.getLong(16);
+    }
+
+    void watermark(long epochMilli) {
+        buffer.putLong(16, epochMilli);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * The mapped file, or null for an off-heap table.
+     */
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Atomically replace {@code target} with the file of this mapped table, the mapping stays valid.
+     */
+    void moveTo(Path target) {
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            file = target;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not move price table " + file + " to " + target, exception);
+        }
+    }
+
+    /**
+     * Write a mapped table back to its file, the operating system also does that on its own.
+     */
+    void force() {
+        if (buffer instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    private long key(int slot) {
+        return (long) LONG.getAcquire(buffer, offset(slot));
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /**
+     * Sequence ids are dense, the multiplication spreads neighbours over the table.
+     */
+    private static int hash(long id) {
+        long hash = id * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,39 @@
+package programmerzamannow.springdata.jpa.reactive;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import programmerzamannow.springdata.jpa.model.CategorySummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking category reads over R2DBC, see {@link ReactiveProductRepository}.
+ */
+@Repository
+public class ReactiveCategoryRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCategoryRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<CategorySummary> findFirstByNameEquals(String name) {
+        return databaseClient.sql("SELECT id, name FROM categories WHERE name = :name ORDER BY id LIMIT 1")
+                .bind("name", name)
+                .map(this::summary)
+                .one();
+    }
+
+    public Flux<CategorySummary> findAllByNameLike(String name) {
+        return databaseClient.sql("SELECT id, name FROM categories WHERE name LIKE :name ORDER BY id")
+                .bind("name", name)
+                .map(this::summary)
+                .all();
+    }
+
+    private CategorySummary summary(Readable row) {
+        return new CategorySummary(row.get("id", Long.class), row.get("name", String.class));
+    }
+}
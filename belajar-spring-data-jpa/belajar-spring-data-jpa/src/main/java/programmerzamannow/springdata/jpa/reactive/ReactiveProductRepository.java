@@ -0,0 +1,73 @@
+package programmerzamannow.springdata.jpa.reactive;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking product reads over R2DBC, projections only. The same queries as the {@code ProductRepository}
+ * projection methods on the tables JPA writes, with a connection from the R2DBC pool of {@code spring.r2dbc.*}
+ * instead of a JDBC connection and a thread. Rows are produced as the subscriber requests them, a slow client keeps
+ * its connection until it read the last row or cancelled.
+ * <p>
+ * Reads the home database, sharded products and read replicas are only served by the JPA side.
+ */
+@Repository
+public class ReactiveProductRepository {
+
+    private static final String SUMMARY = """
+            SELECT p.id, p.name, p.price, c.name AS category_name
+            FROM product p JOIN categories c ON c.id = p.category_id""";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Same rows as {@code ProductRepository.findAllSummaryByCategoryName} ordered by id.
+     */
+    public Flux<ProductSummary> findAllSummaryByCategoryName(String name) {
+        return databaseClient.sql(SUMMARY + " WHERE c.name = :name ORDER BY p.id")
+                .bind("name", name)
+                .map(this::summary)
+                .all();
+    }
+
+    /**
+     * Same rows as {@code ProductRepository.searchProductSummary}, the first {@code limit} by id after
+     * {@code afterId}, so a client pages with the last id it received.
+     */
+    public Flux<ProductSummary> searchProductSummary(String name, long afterId, int limit) {
+        return databaseClient.sql(SUMMARY + " WHERE (p.name LIKE :name OR c.name LIKE :name) AND p.id > :afterId ORDER BY p.id LIMIT :limit")
+                .bind("name", name)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(this::summary)
+                .all();
+    }
+
+    public Mono<Long> countByCategoryName(String name) {
+        return databaseClient.sql("SELECT COUNT(*) FROM product p JOIN categories c ON c.id = p.category_id WHERE c.name = :name")
+                .bind("name", name)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<ProductPrice> findPriceById(Long id) {
+        return databaseClient.sql("SELECT id, price FROM product WHERE id = :id")
+                .bind("id", id)
+                .map(row -> new ProductPrice(row.get("id", Long.class), row.get("price", Long.class)))
+                .one();
+    }
+
+    private ProductSummary summary(Readable row) {
+        return new ProductSummary(row.get("id", Long.class), row.get("name", String.class),
+                row.get("price", Long.class), row.get("category_name", String.class));
+    }
+}
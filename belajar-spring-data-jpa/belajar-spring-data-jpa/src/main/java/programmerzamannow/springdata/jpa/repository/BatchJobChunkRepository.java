@@ -0,0 +1,27 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.BatchJobChunk;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BatchJobChunkRepository extends JpaRepository<BatchJobChunk, Long> {
+
+    @Query("SELECT c.chunkStart FROM BatchJobChunk c WHERE c.jobName = :jobName")
+    List<Long> findChunkStartsByJobName(@Param("jobName") String jobName);
+
+    @Query("SELECT MAX(c.completedAt) FROM BatchJobChunk c WHERE c.jobName = :jobName")
+    Instant findLastCompletedAtByJobName(@Param("jobName") String jobName);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BatchJobChunk c WHERE c.jobName = :jobName")
+    int deleteAllByJobName(@Param("jobName") String jobName);
+}
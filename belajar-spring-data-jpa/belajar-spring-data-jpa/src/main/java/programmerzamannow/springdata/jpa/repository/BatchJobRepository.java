@@ -0,0 +1,16 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+import programmerzamannow.springdata.jpa.entity.BatchJob;
+
+import java.util.Optional;
+
+@Repository
+public interface BatchJobRepository extends JpaRepository<BatchJob, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<BatchJob> findFirstByNameEquals(String name);
+}
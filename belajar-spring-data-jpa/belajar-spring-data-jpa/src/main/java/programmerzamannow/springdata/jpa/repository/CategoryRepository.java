@@ -1,7 +1,16 @@
 package programmerzamannow.springdata.jpa.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.coalescing.Coalesced;
 import programmerzamannow.springdata.jpa.entity.Category;
 
 import java.util.List;
@@ -10,7 +19,23 @@ import java.util.Optional;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+    @Coalesced
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "category-query")
+    })
     Optional<Category> findFirstByNameEquals(String name);
 
     List<Category> findAllByNameLike(String name);
+
+    @Query(value = "SELECT c.id FROM Category c WHERE c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Bulk delete, Hibernate evicts the whole {@code category} cache region and the query cache afterwards.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM Category c WHERE c.id = :id")
+    int deleteCategoryUsingId(@Param("id") Long id);
 }
@@ -0,0 +1,43 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.CategoryStats;
+
+import java.util.List;
+
+@Repository
+public interface CategoryStatsRepository extends JpaRepository<CategoryStats, Long> {
+
+    @Transactional(readOnly = true)
+    @Query("SELECT s FROM CategoryStats s, Category c WHERE s.categoryId = c.id AND c.name = :name")
+    List<CategoryStats> findAllByCategoryName(@Param("name") String name);
+
+    /**
+     * Recompute the stats of one category from the {@code (category_id, price)} index, same statement as
+     * {@link programmerzamannow.springdata.jpa.stats.CategoryStatsChanges} uses for a category without stats.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO category_stats (category_id, product_count, priced_count, price_sum, min_price, max_price)
+            SELECT c.id, COUNT(p.id), COUNT(p.price), COALESCE(SUM(p.price), 0), MIN(p.price), MAX(p.price)
+            FROM categories c LEFT JOIN product p ON p.category_id = c.id WHERE c.id = :categoryId GROUP BY c.id
+            ON DUPLICATE KEY UPDATE product_count = VALUES(product_count), priced_count = VALUES(priced_count),
+                price_sum = VALUES(price_sum), min_price = VALUES(min_price), max_price = VALUES(max_price)""")
+    int recompute(@Param("categoryId") Long categoryId);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM category_stats WHERE category_id = :categoryId")
+    int deleteStatsUsingCategoryId(@Param("categoryId") Long categoryId);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM category_stats WHERE category_id NOT IN (SELECT id FROM categories)")
+    int deleteOrphans();
+}
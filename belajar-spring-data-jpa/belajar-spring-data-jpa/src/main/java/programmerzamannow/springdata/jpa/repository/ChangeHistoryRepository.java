@@ -0,0 +1,24 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+
+@Repository
+public interface ChangeHistoryRepository extends JpaRepository<ChangeHistory, Long> {
+
+    /**
+     * Newest first by the time of the change, not by id, a record replayed from the spill file gets its id long after
+     * it changed. Served from the {@code (entity_type, entity_id, property, changed_at, id)} index.
+     */
+    @Transactional(readOnly = true)
+    Window<ChangeHistory> findAllByEntityTypeAndEntityIdAndPropertyOrderByChangedAtDescIdDesc(String entityType,
+                                                                                               Long entityId,
+                                                                                               String property,
+                                                                                               ScrollPosition position,
+                                                                                               Limit limit);
+}
@@ -0,0 +1,23 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Oldest events not locked by another relay, {@code FOR UPDATE SKIP LOCKED} on MySQL 8. Every node gets a
+     * disjoint batch without waiting on the others. The lock mode is given as a hint only, {@code @Lock} would be
+     * applied after it and replace {@code UPGRADE_SKIPLOCKED} with a plain {@code PESSIMISTIC_WRITE}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_LOCK_MODE, value = "upgrade-skiplocked"))
+    List<OutboxEvent> findAllByOrderByIdAsc(Limit limit);
+}
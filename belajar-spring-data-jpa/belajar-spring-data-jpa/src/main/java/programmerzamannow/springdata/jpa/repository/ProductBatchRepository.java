@@ -0,0 +1,14 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import programmerzamannow.springdata.jpa.entity.Product;
+
+public interface ProductBatchRepository {
+
+    /**
+     * Persist products in chunks of {@code batchSize}, flushing and clearing the
+     * persistence context after every chunk so large imports keep a flat heap.
+     *
+     * @return number of persisted products
+     */
+    int saveAllBatched(Iterable<Product> products, int batchSize);
+}
@@ -0,0 +1,40 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+public class ProductBatchRepositoryImpl implements ProductBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Product> products, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+
+        int count = 0;
+        for (Product product : products) {
+            if (product.getCategory() != null && product.getCategory().getId() != null) {
+                // a detached category would otherwise be re-read after every clear()
+                product.setCategory(entityManager.getReference(Category.class, product.getCategory().getId()));
+            }
+            entityManager.persist(product);
+            count++;
+
+            if (count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return count;
+    }
+}
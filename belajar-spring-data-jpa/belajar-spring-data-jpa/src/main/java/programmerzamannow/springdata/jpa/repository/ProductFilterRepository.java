@@ -0,0 +1,18 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductFilter;
+
+public interface ProductFilterRepository {
+
+    /**
+     * Same result as a {@code Specification} built from the filter, but every combination of filter fields and sort
+     * maps to one fixed JPQL string, so Hibernate parses it once and then serves it from the query plan cache.
+     * Sortable by {@code id}, {@code name} and {@code price}.
+     */
+    Page<Product> findAllByFilter(ProductFilter filter, Pageable pageable);
+
+    long countByFilter(ProductFilter filter);
+}
@@ -0,0 +1,169 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductFilter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JPQL for a filter only depends on which fields are set and on the sort, not on their values. The sort is
+ * normalized to the properties that can change the order, so there are at most 32 filter shapes times 26 orders.
+ * Each one is built once and kept here, the values are bound as parameters. {@code IN} lists are padded to the next power of two by {@code in_clause_parameter_padding}, so a
+ * varying number of categories only yields a handful of SQL strings per shape.
+ */
+public class ProductFilterRepositoryImpl implements ProductFilterRepository {
+
+    private static final int NAME = 1;
+
+    private static final int CATEGORY_IDS = 1 << 1;
+
+    private static final int CATEGORY_NAME = 1 << 2;
+
+    private static final int MIN_PRICE = 1 << 3;
+
+    private static final int MAX_PRICE = 1 << 4;
+
+    private static final Set<String> SORTABLE = Set.of("id", "name", "price");
+
+    private final Map<String, String> selectQueries = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> countQueries = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Product> findAllByFilter(ProductFilter filter, Pageable pageable) {
+        if (filter.categoryIds() != null && filter.categoryIds().isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        int shape = shape(filter);
+        String orderBy = orderBy(pageable.getSort());
+        String jpql = selectQueries.computeIfAbsent(shape + orderBy, key -> "SELECT p " + from(shape) + orderBy);
+
+        TypedQuery<Product> query = bind(entityManager.createQuery(jpql, Product.class), filter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Product> content = query.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countByFilter(filter));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countByFilter(ProductFilter filter) {
+        if (filter.categoryIds() != null && filter.categoryIds().isEmpty()) {
+            return 0;
+        }
+
+        int shape = shape(filter);
+        String jpql = countQueries.computeIfAbsent(shape, key -> "SELECT COUNT(p) " + from(shape));
+        return bind(entityManager.createQuery(jpql, Long.class), filter).getSingleResult();
+    }
+
+    private int shape(ProductFilter filter) {
+        int shape = 0;
+        if (filter.nameLike() != null) {
+            shape |= NAME;
+        }
+        if (filter.categoryIds() != null) {
+            shape |= CATEGORY_IDS;
+        }
+        if (filter.categoryName() != null) {
+            shape |= CATEGORY_NAME;
+        }
+        if (filter.minPrice() != null) {
+            shape |= MIN_PRICE;
+        }
+        if (filter.maxPrice() != null) {
+            shape |= MAX_PRICE;
+        }
+        return shape;
+    }
+
+    private String from(int shape) {
+        StringBuilder jpql = new StringBuilder("FROM Product p");
+        if ((shape & CATEGORY_NAME) != 0) {
+            jpql.append(" JOIN p.category c");
+        }
+        String keyword = " WHERE ";
+        if ((shape & NAME) != 0) {
+            jpql.append(keyword).append("p.name LIKE :nameLike");
+            keyword = " AND ";
+        }
+        if ((shape & CATEGORY_IDS) != 0) {
+            jpql.append(keyword).append("p.category.id IN :categoryIds");
+            keyword = " AND ";
+        }
+        if ((shape & CATEGORY_NAME) != 0) {
+            jpql.append(keyword).append("c.name = :categoryName");
+            keyword = " AND ";
+        }
+        if ((shape & MIN_PRICE) != 0) {
+            jpql.append(keyword).append("p.price >= :minPrice");
+            keyword = " AND ";
+        }
+        if ((shape & MAX_PRICE) != 0) {
+            jpql.append(keyword).append("p.price <= :maxPrice");
+        }
+        return jpql.toString();
+    }
+
+    /**
+     * Only whitelisted properties end up in the JPQL, the id is appended as tie breaker for stable pages. A property
+     * sorted by again, or anything after the unique id, cannot change the order and is left out.
+     */
+    private String orderBy(Sort sort) {
+        StringBuilder jpql = new StringBuilder(" ORDER BY ");
+        Set<String> seen = new HashSet<>();
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort products by " + order.getProperty());
+            }
+            if (seen.contains("id")) {
+                continue;
+            }
+            if (seen.add(order.getProperty())) {
+                jpql.append("p.").append(order.getProperty()).append(order.isAscending() ? " ASC, " : " DESC, ");
+            }
+        }
+        if (seen.contains("id")) {
+            return jpql.substring(0, jpql.length() - 2);
+        }
+        return jpql.append("p.id ASC").toString();
+    }
+
+    private <T> TypedQuery<T> bind(TypedQuery<T> query, ProductFilter filter) {
+        if (filter.nameLike() != null) {
+            query.setParameter("nameLike", filter.nameLike());
+        }
+        if (filter.categoryIds() != null) {
+            query.setParameter("categoryIds", filter.categoryIds());
+        }
+        if (filter.categoryName() != null) {
+            query.setParameter("categoryName", filter.categoryName());
+        }
+        if (filter.minPrice() != null) {
+            query.setParameter("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            query.setParameter("maxPrice", filter.maxPrice());
+        }
+        return query;
+    }
+}
@@ -1,58 +1,198 @@
 package programmerzamannow.springdata.jpa.repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import programmerzamannow.springdata.jpa.coalescing.Coalesced;
 import programmerzamannow.springdata.jpa.entity.Category;
 import org.springframework.transaction.annotation.Transactional;
 import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.CategoryProductTotal;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductPriceVersion;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
 import programmerzamannow.springdata.jpa.model.SimpleProduct;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
-
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductBatchRepository, ProductSearchRepository, ProductFilterRepository {
+
+    /**
+     * Reads the current shard only, {@code ShardedProductService.findAllByCategoryName} reads all of them.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
     List<Product> findAllByCategory_Name(String name);
 
+    @Transactional(readOnly = true)
     List<Product> findAllByCategory_Name(String name, Sort sort);
 
+    @EntityGraph("Product.category")
+    List<Product> findAllWithCategoryByCategory_Name(String name);
+
+    @EntityGraph("Product.category")
+    Page<Product> findAllWithCategoryByCategory_Name(String name, Pageable pageable);
+
+    @Transactional(readOnly = true)
     Page<Product> findAllByCategory_Name(String name, Pageable pageable);
 
+    /**
+     * Reads the current shard only, {@code ShardedProductService.findAllSummaryByCategoryName} reads all of them.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.ProductSummary(p.id, p.name, p.price, c.name) " +
+            "FROM Product p JOIN p.category c WHERE c.name = :name")
+    List<ProductSummary> findAllSummaryByCategoryName(@Param("name") String name, Sort sort);
+
+    @Transactional(readOnly = true)
+    @Query(
+            value = "SELECT new programmerzamannow.springdata.jpa.model.ProductSummary(p.id, p.name, p.price, c.name) " +
+                    "FROM Product p JOIN p.category c WHERE c.name = :name",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.name = :name"
+    )
+    Page<ProductSummary> findAllSummaryByCategoryName(@Param("name") String name, Pageable pageable);
+
+    Window<Product> findAllByCategory_NameOrderByIdAsc(String name, ScrollPosition position, Limit limit);
+
+    Window<Product> findAllByCategory_NameAndPriceNotNullOrderByPriceAscIdAsc(String name, ScrollPosition position, Limit limit);
+
+    /**
+     * Reads the current shard only, {@code ShardedProductService.scrollByCategoryName} pages over all of them.
+     */
+    default KeysetPage<Product> scrollByCategoryName(String name, String token, int size) {
+        return KeysetPage.of(findAllByCategory_NameOrderByIdAsc(name, KeysetPage.decode(token), Limit.of(size)));
+    }
+
+    /**
+     * Products with a price only, the keyset condition {@code price > ? OR (price = ? AND id > ?)} never matches a
+     * {@code null} price, so those rows could not be paged past. Reads the current shard only like
+     * {@link #scrollByCategoryName(String, String, int)}.
+     */
+    default KeysetPage<Product> scrollByCategoryNameOrderByPrice(String name, String token, int size) {
+        return KeysetPage.of(findAllByCategory_NameAndPriceNotNullOrderByPriceAscIdAsc(name, KeysetPage.decode(token), Limit.of(size)));
+    }
+
+    @Transactional(readOnly = true)
     Long countByCategory_name(String name);
 
+    @Transactional(readOnly = true)
     boolean existsByName(String name);
 
     @Transactional
     int deleteByName(String name);
 
+    @Transactional(readOnly = true)
     List<Product> searchProductUsingName(@Param("name")  String name, Pageable pageable);
 
+    @Transactional(readOnly = true)
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.ProductSummary(p.id, p.name, p.price, c.name) " +
+            "FROM Product p JOIN p.category c WHERE p.name = :name")
+    List<ProductSummary> searchProductSummaryUsingName(@Param("name") String name, Pageable pageable);
+
+    @Transactional(readOnly = true)
     @Query(
             value = "SELECT p FROM Product p WHERE p.name LIKE :name or p.category.name LIKE :name",
             countQuery = "SELECT COUNT(p) FROM Product p WHERE p.name LIKE :name or p.category.name LIKE :name"
     )
     Page<Product> searchProduct(@Param("name") String name, Pageable pageable);
 
-    @Modifying
+    @Transactional(readOnly = true)
+    @Query(
+            value = "SELECT p FROM Product p JOIN FETCH p.category c WHERE p.name LIKE :name or c.name LIKE :name",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.name LIKE :name or p.category.name LIKE :name"
+    )
+    Page<Product> searchProductWithCategory(@Param("name") String name, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(
+            value = "SELECT new programmerzamannow.springdata.jpa.model.ProductSummary(p.id, p.name, p.price, c.name) " +
+                    "FROM Product p JOIN p.category c WHERE p.name LIKE :name or c.name LIKE :name",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.name LIKE :name or p.category.name LIKE :name"
+    )
+    Page<ProductSummary> searchProductSummary(@Param("name") String name, Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #searchProduct(String, Pageable)}, ordered by id and without the count query.
+     */
+    default KeysetPage<Product> scrollSearchProduct(String name, String token, int size) {
+        Specification<Product> specification = (root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.like(root.get("name"), name),
+                criteriaBuilder.like(root.get("category").get("name"), name)
+        );
+        return KeysetPage.of(findBy(specification, query -> query
+                .sortBy(Sort.by(Sort.Order.asc("id")))
+                .limit(size)
+                .scroll(KeysetPage.decode(token))));
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query(value = "DELETE FROM Product p WHERE p.name = :name")
     int deleteProductUsingName(@Param("name") String name);
 
-    @Modifying
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query(value = "UPDATE Product p SET p.price = 0 WHERE p.id = :id")
     int updateProductUsingId(@Param("id") Long id);
 
+    @Query(value = "SELECT p.id FROM Product p WHERE p.category.id = :categoryId AND p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId, @Param("afterId") Long afterId, Limit limit);
+
+    @Query(value = "SELECT p.id FROM Product p WHERE p.name LIKE :name AND p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsByNameLike(@Param("name") String name, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Those of {@code ids} that exist, locked until the transaction ends, so a bulk statement on them changes exactly
+     * these rows.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "SELECT p.id FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Long> findExistingIdsForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.CategoryProductTotal(p.category.id, COUNT(p), COUNT(p.price), COALESCE(SUM(p.price), 0)) " +
+            "FROM Product p WHERE p.id IN :ids GROUP BY p.category.id")
+    List<CategoryProductTotal> sumByCategoryForIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MIN(p.id) FROM Product p")
+    Long findMinId();
+
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
+
+    @Query("SELECT p FROM Product p WHERE p.id >= :fromId AND p.id < :toId ORDER BY p.id")
+    List<Product> findAllByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Rows are pulled from a server-side cursor in chunks of 1000 (needs {@code useCursorFetch=true}
+     * on MySQL) and loaded read-only, so no dirty-checking snapshot is kept per row. Runs on the current shard, call
+     * it on the shard of the category.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     Stream<Product> streamAllByCategory(Category category);
 
     Slice<Product> findAllByCategory(Category category, Pageable pageable);
@@ -61,4 +201,29 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     Optional<Product> findFirstByIdEquals(Long id);
 
     <T>List<T> findAllByNameLike(String name, Class<T> tClass);
+
+    Optional<ProductPrice> findPriceById(Long id);
+
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.ProductPrice(p.id, p.price) FROM Product p " +
+            "WHERE p.id IN :ids AND p.price IS NOT NULL")
+    List<ProductPrice> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every price for the price snapshot, a projection so no entity is loaded, pulled in chunks like
+     * {@link #streamAllByCategory(Category)}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.ProductPriceVersion(p.id, p.price, p.version) FROM Product p")
+    Stream<ProductPriceVersion> streamAllPrices();
+
+    /**
+     * Prices modified at or after {@code since}, for catching the price snapshot up between refreshes.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new programmerzamannow.springdata.jpa.model.ProductPriceVersion(p.id, p.price, p.version) FROM Product p " +
+            "WHERE p.modifiedAt >= :since")
+    Stream<ProductPriceVersion> streamPricesModifiedSince(@Param("since") Instant since);
+
+    @EntityGraph("Product.category")
+    List<Product> findAllWithCategoryByNameLike(String name);
 }
@@ -0,0 +1,21 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+public interface ProductSearchRepository {
+
+    /**
+     * Full-text search on product and category name using the Lucene index, ranked by relevance.
+     * Words also match as prefixes, so it can be called on every keystroke of the search box.
+     */
+    Page<Product> fullTextSearch(String text, Pageable pageable);
+
+    /**
+     * Rebuild the whole product index from the database, e.g. after a restore or a first deployment.
+     *
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException while products are sharded
+     */
+    void reindexAll() throws InterruptedException;
+}
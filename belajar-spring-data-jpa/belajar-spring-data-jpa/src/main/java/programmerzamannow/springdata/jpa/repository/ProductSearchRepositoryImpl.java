@@ -0,0 +1,94 @@
+package programmerzamannow.springdata.jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.search.engine.search.query.SearchQuery;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    /**
+     * The index holds the products of every shard, only the ids of the hits are read from it and the products are
+     * loaded from the shard in their id. An unpaged request gets every hit.
+     */
+    @Override
+    public Page<Product> fullTextSearch(String text, Pageable pageable) {
+        if (text == null || text.isBlank()) {
+            return Page.empty(pageable);
+        }
+
+        SearchResult<Long> result = transactionOperations.execute(status -> {
+            SearchQuery<Long> query = Search.session(entityManager)
+                    .search(Product.class)
+                    .select(factory -> factory.id(Long.class))
+                    .where(factory -> factory.bool()
+                            .should(factory.match().field("name").boost(2.0f)
+                                    .field("category.name")
+                                    .matching(text))
+                            .should(factory.match().field("name_autocomplete").boost(1.5f)
+                                    .field("category.name_autocomplete").boost(0.5f)
+                                    .matching(text)))
+                    .toQuery();
+            return pageable.isPaged() ? query.fetch((int) pageable.getOffset(), pageable.getPageSize()) : query.fetchAll();
+        });
+
+        return new PageImpl<>(load(result.hits()), pageable, result.total().hitCount());
+    }
+
+    /**
+     * Products in the order of {@code ids}, ids no longer found on their shard are left out like Hibernate Search
+     * leaves out stale hits.
+     */
+    private List<Product> load(List<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        shardRouter.fanOut(shard -> {
+            List<Long> shardIds = ids.stream().filter(id -> shardRouter.shardOf(id) == shard).toList();
+            return shardIds.isEmpty() ? List.<Product>of() : entityManager
+                    .createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                    .setParameter("ids", shardIds)
+                    .getResultList();
+        }).forEach(shardProducts -> shardProducts.forEach(product -> products.put(product.getId(), product)));
+        return ids.stream().map(products::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * The mass indexer loads from the home database only and would drop the products of the other shards.
+     */
+    @Override
+    public void reindexAll() throws InterruptedException {
+        if (shardRouter.shardCount() > 1) {
+            throw new IllegalStateException("Reindexing sharded products is not supported");
+        }
+        Search.mapping(entityManagerFactory)
+                .scope(Product.class)
+                .massIndexer()
+                .startAndWait();
+    }
+}
@@ -0,0 +1,38 @@
+package programmerzamannow.springdata.jpa.search;
+
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Analyzers for product search. {@code name} matches whole words, {@code autocomplete} indexes
+ * word prefixes so a partially typed word in the search box already matches.
+ */
+public class ProductAnalysisConfigurer implements LuceneAnalysisConfigurer {
+
+    public static final String NAME = "name";
+
+    public static final String AUTOCOMPLETE_INDEXING = "autocomplete_indexing";
+
+    public static final String AUTOCOMPLETE_SEARCH = "autocomplete_search";
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(NAME).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding");
+
+        context.analyzer(AUTOCOMPLETE_INDEXING).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding")
+                .tokenFilter("edgeNGram")
+                .param("minGramSize", "1")
+                .param("maxGramSize", "20");
+
+        context.analyzer(AUTOCOMPLETE_SEARCH).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding");
+    }
+}
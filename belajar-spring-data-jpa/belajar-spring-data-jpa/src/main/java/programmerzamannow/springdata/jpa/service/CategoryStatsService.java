@@ -0,0 +1,73 @@
+package programmerzamannow.springdata.jpa.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import programmerzamannow.springdata.jpa.entity.CategoryStats;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.CategoryStatsRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Product count and price range per category as a primary key read of {@code category_stats} instead of an
+ * aggregate over {@code product}. The stats are maintained in the writing transactions, {@link #reconcile()}
+ * catches up with bulk statements that bypass Hibernate and do not report their change. The stats of a category are
+ * kept on the shard of its products.
+ */
+@Service
+public class CategoryStatsService {
+
+    private static final int RECONCILE_CHUNK_SIZE = 100;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    public Optional<CategoryStats> getStats(Long categoryId) {
+        return shardRouter.onShard(shardRouter.shardFor(categoryId), () -> categoryStatsRepository.findById(categoryId));
+    }
+
+    /**
+     * Same result as {@code ProductRepository.countByCategory_name}.
+     */
+    public long countProducts(String categoryName) {
+        return shardRouter.fanOut(shard -> categoryStatsRepository.findAllByCategoryName(categoryName)).stream()
+                .flatMap(List::stream)
+                .mapToLong(CategoryStats::getProductCount)
+                .sum();
+    }
+
+    /**
+     * Recompute every category, one short transaction per category so only the products of one category are
+     * locked at a time.
+     *
+     * @return the number of categories recomputed
+     */
+    @Scheduled(fixedDelayString = "${app.category-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.category-stats.reconcile-initial-delay:PT1M}")
+    public long reconcile() {
+        long reconciled = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = categoryRepository.findIdsAfter(afterId, Limit.of(RECONCILE_CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                reconciled += shardRouter.onShard(shardRouter.shardFor(id), () -> categoryStatsRepository.recompute(id)) > 0 ? 1 : 0;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        shardRouter.shards().forEach(shard -> shardRouter.onShard(shard, categoryStatsRepository::deleteOrphans));
+        return reconciled;
+    }
+}
@@ -0,0 +1,31 @@
+package programmerzamannow.springdata.jpa.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.repository.ChangeHistoryRepository;
+
+/**
+ * Price history of a product and name history of a category, newest first in keyset pages. Records reach the table
+ * a moment after their commit, see {@link programmerzamannow.springdata.jpa.history.ChangeHistoryBuffer}.
+ */
+@Service
+public class ChangeHistoryService {
+
+    @Autowired
+    private ChangeHistoryRepository changeHistoryRepository;
+
+    public KeysetPage<ChangeHistory> findPriceHistory(Long productId, String token, int size) {
+        return KeysetPage.of(changeHistoryRepository.findAllByEntityTypeAndEntityIdAndPropertyOrderByChangedAtDescIdDesc(
+                Product.class.getSimpleName(), productId, "price", KeysetPage.decode(token), Limit.of(size)));
+    }
+
+    public KeysetPage<ChangeHistory> findNameHistory(Long categoryId, String token, int size) {
+        return KeysetPage.of(changeHistoryRepository.findAllByEntityTypeAndEntityIdAndPropertyOrderByChangedAtDescIdDesc(
+                Category.class.getSimpleName(), categoryId, "name", KeysetPage.decode(token), Limit.of(size)));
+    }
+}
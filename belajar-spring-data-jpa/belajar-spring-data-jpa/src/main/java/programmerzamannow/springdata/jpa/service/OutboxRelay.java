@@ -0,0 +1,90 @@
+package programmerzamannow.springdata.jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+import programmerzamannow.springdata.jpa.outbox.OutboxSink;
+import programmerzamannow.springdata.jpa.repository.OutboxEventRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.List;
+
+/**
+ * Moves {@code outbox_event} rows to the {@link OutboxSink}. Each batch is locked with {@code SKIP LOCKED},
+ * published and deleted in one short transaction, so every app node can run the relay and the nodes share the
+ * backlog instead of publishing the same events. A failing sink rolls the batch back and it is retried on the next
+ * poll. Product events are written on the shard of the product, every shard is relayed in turn.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    private final Counter published;
+
+    public OutboxRelay(MeterRegistry meterRegistry) {
+        this.published = meterRegistry.counter("outbox.events.published");
+    }
+
+    /**
+     * Relay batches until the outbox has fewer than a batch left for this node.
+     *
+     * @return the number of events published
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval:PT1S}")
+    public long relay() {
+        return shardRouter.shards()
+                .mapToLong(shard -> shardRouter.onShard(shard, this::relayShard))
+                .sum();
+    }
+
+    private long relayShard() {
+        long relayed = 0;
+        try {
+            while (true) {
+                Integer count = transactionOperations.execute(transactionStatus -> relayBatch());
+                relayed += count == null ? 0 : count;
+                if (count == null || count < batchSize) {
+                    return relayed;
+                }
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Outbox relay stopped after {} events, retrying on the next poll", relayed, exception);
+            return relayed;
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        outboxSink.publish(events);
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+        published.increment(events.size());
+        return events.size();
+    }
+}
@@ -0,0 +1,88 @@
+package programmerzamannow.springdata.jpa.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductPriceVersion;
+import programmerzamannow.springdata.jpa.price.PriceSnapshot;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Prices from the {@link PriceSnapshot}, falling back to {@code ProductRepository.findPriceById} for ids the
+ * snapshot has no entry for. The snapshot is loaded right after startup and rebuilt every
+ * {@code app.price-snapshot.refresh-interval}, which also brings back products invalidated by bulk statements.
+ * <p>
+ * Every {@code app.price-snapshot.poll-interval} it catches up with the products modified since, so a price changed
+ * on another node is served at most the poll interval plus the duration of one poll late. A product deleted on
+ * another node, or a change whose transaction ran longer than {@code app.price-snapshot.poll-overlap}, keeps its old
+ * price until the next refresh.
+ */
+@Service
+public class PriceSnapshotService {
+
+    @Autowired
+    private PriceSnapshot priceSnapshot;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.price-snapshot.poll-overlap:PT30S}")
+    private Duration pollOverlap;
+
+    public Optional<ProductPrice> findPrice(Long id) {
+        if (!shardRouter.isProductId(id)) {
+            return Optional.empty();
+        }
+        long price = priceSnapshot.price(id);
+        if (price == PriceSnapshot.MISSING) {
+            return shardRouter.onShard(shardRouter.shardOf(id), () -> productRepository.findPriceById(id));
+        }
+        return Optional.of(new ProductPrice(id, price == PriceSnapshot.NO_PRICE ? null : price));
+    }
+
+    /**
+     * Not read-only on purpose, a replica lagging behind would lose the changes committed before the refresh.
+     * The shards are loaded one after the other into the same table.
+     */
+    @Scheduled(fixedDelayString = "${app.price-snapshot.refresh-interval:PT10M}",
+            initialDelayString = "${app.price-snapshot.initial-delay:PT0S}")
+    public void refresh() {
+        priceSnapshot.refresh(loader -> shardRouter.shards().forEach(shard -> shardRouter.onShard(shard, () ->
+                transactionOperations.execute(transactionStatus -> {
+                    try (Stream<ProductPriceVersion> prices = productRepository.streamAllPrices()) {
+                        prices.forEach(price -> loader.put(price.id(), price.price(), price.version()));
+                    }
+                    return null;
+                }))));
+    }
+
+    /**
+     * Not read-only either, for the same reason as {@link #refresh()}. The index on {@code modified_at} keeps a poll
+     * that finds nothing to a single index probe per shard.
+     */
+    @Scheduled(fixedDelayString = "${app.price-snapshot.poll-interval:PT5S}",
+            initialDelayString = "${app.price-snapshot.initial-delay:PT0S}")
+    public void catchUp() {
+        priceSnapshot.catchUp(pollOverlap, (since, loader) -> shardRouter.shards().forEach(shard -> shardRouter.onShard(shard, () ->
+                transactionOperations.execute(transactionStatus -> {
+                    try (Stream<ProductPriceVersion> prices = productRepository.streamPricesModifiedSince(since)) {
+                        prices.forEach(price -> loader.put(price.id(), price.price(), price.version()));
+                    }
+                    return null;
+                }))));
+    }
+}
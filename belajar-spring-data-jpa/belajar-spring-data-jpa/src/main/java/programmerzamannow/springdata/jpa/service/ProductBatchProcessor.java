@@ -0,0 +1,337 @@
+package programmerzamannow.springdata.jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.BatchJob;
+import programmerzamannow.springdata.jpa.entity.BatchJobChunk;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.BatchJobReport;
+import programmerzamannow.springdata.jpa.repository.BatchJobChunkRepository;
+import programmerzamannow.springdata.jpa.repository.BatchJobRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Runs a task over every product, replacing a single {@code streamAllByCategory} pass in one long transaction. The
+ * product id range is cut into chunks of {@code chunkSize} ids, a fixed number of workers take the chunks in id
+ * order and each chunk is loaded and processed in its own short transaction. The transaction also inserts the
+ * {@link BatchJobChunk} checkpoint, so a run that crashed or failed is resumed under the same job name and only
+ * does the chunks that never committed.
+ * <p>
+ * The id range is fixed when the job is first started, products inserted afterwards are not part of the job. Ids
+ * come from a sequence with gaps, so chunks hold up to {@code chunkSize} products and some may be empty.
+ * <p>
+ * A job runs once at a time, starting it claims its row under a lock and refuses while it is {@code RUNNING}. A
+ * {@code RUNNING} job without a committed chunk for {@code app.batch.stale-after} is taken to have crashed and is
+ * resumed, keep that well above the time one chunk takes.
+ * <p>
+ * Ids and chunks are read from the home database only, so jobs are refused while products are sharded.
+ */
+@Slf4j
+@Service
+public class ProductBatchProcessor {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BatchJobRepository batchJobRepository;
+
+    @Autowired
+    private BatchJobChunkRepository batchJobChunkRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Number of chunks in flight, each holds one connection until it commits. Keep it below the pool size so web
+     * requests still get connections, extra workers only queue on the bulkhead.
+     */
+    @Value("${app.batch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.batch.max-chunk-attempts:3}")
+    private int maxChunkAttempts;
+
+    @Value("${app.batch.progress-interval:10s}")
+    private Duration progressInterval;
+
+    @Value("${app.batch.stale-after:10m}")
+    private Duration staleAfter;
+
+    /**
+     * Progress of the latest run per job name, the {@code batch.job.progress} gauge of a job is registered once and
+     * reads whichever run is current.
+     */
+    private final Map<String, AtomicReference<Progress>> currentProgress = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface ChunkTask {
+
+        /**
+         * Called inside the transaction of the chunk with its managed products in id order, changes to them are
+         * flushed on commit.
+         */
+        void process(List<Product> products);
+    }
+
+    /**
+     * Update the full text index of every product, without dropping the index first like the mass indexer does.
+     */
+    public BatchJobReport reindex(String jobName, int chunkSize) {
+        return run(jobName, chunkSize, products -> {
+            SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+            products.forEach(indexingPlan::addOrUpdate);
+        });
+    }
+
+    /**
+     * Recompute the price of every product through the entities, so the version check, {@code category_stats} and
+     * the search index see each change.
+     */
+    public BatchJobReport recomputePrices(String jobName, int chunkSize, LongUnaryOperator change) {
+        return run(jobName, chunkSize, products -> products.forEach(product -> {
+            if (product.getPrice() != null) {
+                product.setPrice(change.applyAsLong(product.getPrice()));
+            }
+        }));
+    }
+
+    /**
+     * Start the job, or resume it when a job with this name did not complete. A completed job is not run again,
+     * {@link #reset(String)} it first. A job that is running already is refused with an
+     * {@link IllegalStateException}. When a chunk fails, no new chunks are started, the job is marked as failed
+     * and the exception is thrown once the chunks in flight are done.
+     *
+     * @param chunkSize ids per chunk, only used when the job is started, a resumed job keeps its chunks
+     * @throws IllegalStateException while products are sharded
+     */
+    public BatchJobReport run(String jobName, int chunkSize, ChunkTask task) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+        if (shardRouter.shardCount() > 1) {
+            throw new IllegalStateException("Batch jobs over sharded products are not supported");
+        }
+
+        BatchJob job = start(jobName, chunkSize);
+        long totalChunks = job.getTotalChunks();
+        if (job.getStatus() == BatchJob.Status.COMPLETED) {
+            log.info("Job {} already completed, nothing to do", jobName);
+            return new BatchJobReport(jobName, totalChunks, 0, totalChunks, 0, Duration.ZERO);
+        }
+
+        Set<Long> committed = new HashSet<>(batchJobChunkRepository.findChunkStartsByJobName(jobName));
+        Progress progress = new Progress(job, committed.size());
+        log.info("Job {}: {} chunks of {} ids from {} to {}, {} already committed",
+                jobName, totalChunks, job.getChunkSize(), job.getFirstId(), job.getLastId(), committed.size());
+
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try (ExecutorService workers = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("batch-" + jobName + "-", 0).factory())) {
+            for (long i = 0; i < Math.min(parallelism, totalChunks); i++) {
+                workers.execute(() -> {
+                    long chunk;
+                    while (failure.get() == null && (chunk = nextChunk.getAndIncrement()) < totalChunks) {
+                        long chunkStart = job.getFirstId() + chunk * job.getChunkSize();
+                        if (committed.contains(chunkStart)) {
+                            continue;
+                        }
+                        long chunkEnd = Math.min(chunkStart + job.getChunkSize(), job.getLastId() + 1);
+                        try {
+                            progress.chunkDone(processChunk(jobName, chunkStart, chunkEnd, task, progress.chunkTimer));
+                        } catch (RuntimeException exception) {
+                            log.error("Job {}: chunk [{}, {}) failed", jobName, chunkStart, chunkEnd, exception);
+                            failure.compareAndSet(null, exception);
+                        }
+                    }
+                });
+            }
+        }
+
+        BatchJobReport report = progress.report();
+        finish(jobName, failure.get() == null ? BatchJob.Status.COMPLETED : BatchJob.Status.FAILED);
+        log.info("Job {} {}: {} of {} chunks, {} products in {} ({} products/s)",
+                jobName, failure.get() == null ? "completed" : "failed", report.processedChunks() + report.skippedChunks(),
+                totalChunks, report.products(), report.elapsed(), Math.round(report.productsPerSecond()));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return report;
+    }
+
+    /**
+     * Forget the job and its checkpoints, so its name can be run again.
+     */
+    public void reset(String jobName) {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            batchJobChunkRepository.deleteAllByJobName(jobName);
+            batchJobRepository.deleteById(jobName);
+        });
+    }
+
+    private BatchJob start(String jobName, int chunkSize) {
+        try {
+            return transactionOperations.execute(transactionStatus -> {
+                BatchJob job = batchJobRepository.findFirstByNameEquals(jobName).orElse(null);
+                if (job == null) {
+                    job = new BatchJob(jobName, productRepository.findMinId(), productRepository.findMaxId(), chunkSize,
+                            BatchJob.Status.RUNNING, Instant.now(), null);
+                } else if (job.getStatus() == BatchJob.Status.RUNNING && !abandoned(job)) {
+                    throw new IllegalStateException("Job " + jobName + " is already running");
+                } else if (job.getStatus() != BatchJob.Status.COMPLETED) {
+                    if (job.getStatus() == BatchJob.Status.RUNNING) {
+                        log.warn("Job {} made no progress for {}, resuming it", jobName, staleAfter);
+                    }
+                    job.setStatus(BatchJob.Status.RUNNING);
+                    job.setStartedAt(Instant.now());
+                }
+                return batchJobRepository.save(job);
+            });
+        } catch (DataIntegrityViolationException exception) {
+            // the row did not exist yet, so there was nothing to lock, and another caller inserted it first
+            throw new IllegalStateException("Job " + jobName + " is already running", exception);
+        }
+    }
+
+    private boolean abandoned(BatchJob job) {
+        Instant lastChunk = batchJobChunkRepository.findLastCompletedAtByJobName(job.getName());
+        Instant lastProgress = lastChunk != null && lastChunk.isAfter(job.getStartedAt()) ? lastChunk : job.getStartedAt();
+        return lastProgress.plus(staleAfter).isBefore(Instant.now());
+    }
+
+    private void finish(String jobName, BatchJob.Status status) {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            BatchJob job = batchJobRepository.findById(jobName).orElseThrow();
+            job.setStatus(status);
+            job.setFinishedAt(status == BatchJob.Status.COMPLETED ? Instant.now() : null);
+        });
+    }
+
+    /**
+     * Lock timeouts, deadlocks and lost optimistic races roll the chunk back and it is tried again, any other
+     * failure fails the job.
+     */
+    private int processChunk(String jobName, long chunkStart, long chunkEnd, ChunkTask task, Timer timer) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer products = timer.record(() -> transactionOperations.execute(transactionStatus -> {
+                    List<Product> chunk = productRepository.findAllByIdRange(chunkStart, chunkEnd);
+                    task.process(chunk);
+                    batchJobChunkRepository.save(new BatchJobChunk(null, jobName, chunkStart, chunkEnd, chunk.size(), Instant.now()));
+                    return chunk.size();
+                }));
+                return products == null ? 0 : products;
+            } catch (TransientDataAccessException exception) {
+                if (attempt >= maxChunkAttempts) {
+                    throw exception;
+                }
+                log.warn("Job {}: chunk [{}, {}) attempt {} failed, retrying", jobName, chunkStart, chunkEnd, attempt, exception);
+            }
+        }
+    }
+
+    /**
+     * Chunks and products done by this run, logged every {@code app.batch.progress-interval} and published as
+     * {@code batch.job.*} meters tagged with the job name.
+     */
+    private class Progress {
+
+        private final BatchJob job;
+
+        private final long skippedChunks;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong processedChunks = new AtomicLong();
+
+        private final LongAdder products = new LongAdder();
+
+        private final AtomicLong lastLogNanos = new AtomicLong(startNanos);
+
+        private final Counter chunkCounter;
+
+        private final Counter productCounter;
+
+        private final Timer chunkTimer;
+
+        private Progress(BatchJob job, long skippedChunks) {
+            this.job = job;
+            this.skippedChunks = skippedChunks;
+            this.chunkCounter = meterRegistry.counter("batch.job.chunks", "job", job.getName());
+            this.productCounter = meterRegistry.counter("batch.job.products", "job", job.getName());
+            this.chunkTimer = meterRegistry.timer("batch.job.chunk.duration", "job", job.getName());
+            currentProgress.computeIfAbsent(job.getName(), name -> {
+                AtomicReference<Progress> current = new AtomicReference<>();
+                Gauge.builder("batch.job.progress", current, progress -> progress.get().ratio())
+                        .tag("job", name)
+                        .description("Share of the chunks of the job that are committed")
+                        .register(meterRegistry);
+                return current;
+            }).set(this);
+        }
+
+        private void chunkDone(int chunkProducts) {
+            processedChunks.incrementAndGet();
+            products.add(chunkProducts);
+            chunkCounter.increment();
+            productCounter.increment(chunkProducts);
+
+            long now = System.nanoTime();
+            long last = lastLogNanos.get();
+            if (now - last >= progressInterval.toNanos() && lastLogNanos.compareAndSet(last, now)) {
+                BatchJobReport report = report();
+                log.info("Job {}: {}/{} chunks ({}%), {} products, {} products/s", job.getName(),
+                        report.processedChunks() + skippedChunks, report.totalChunks(), Math.round(ratio() * 100),
+                        report.products(), Math.round(report.productsPerSecond()));
+            }
+        }
+
+        private double ratio() {
+            long totalChunks = job.getTotalChunks();
+            return totalChunks == 0 ? 1 : (double) (processedChunks.get() + skippedChunks) / totalChunks;
+        }
+
+        private BatchJobReport report() {
+            return new BatchJobReport(job.getName(), job.getTotalChunks(), processedChunks.get(), skippedChunks,
+                    products.sum(), Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package programmerzamannow.springdata.jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+import programmerzamannow.springdata.jpa.outbox.OutboxChanges;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.CategoryStatsRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.CategoryReplicator;
+import programmerzamannow.springdata.jpa.shard.ShardContext;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based catalog cleanups. Matching ids are read in keyset chunks and each chunk is deleted or
+ * repriced with one statement in its own short transaction, so a cleanup never holds locks or undo
+ * log for the whole set. Every method returns the number of affected rows.
+ * <p>
+ * Chunks run on the shard of their products, by category on the shard of the category, by ids on the shard of each
+ * id, and by name on every shard in turn.
+ */
+@Service
+public class ProductBulkService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ProductBulkStatements productBulkStatements;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CategoryReplicator categoryReplicator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public long deleteByCategory(Long categoryId, int chunkSize) {
+        return shardRouter.onShard(shardRouter.shardFor(categoryId), () ->
+                forEachChunk((afterId, limit) -> productRepository.findIdsByCategoryId(categoryId, afterId, limit),
+                        chunkSize, this::deleteChunk));
+    }
+
+    public long deleteByNameLike(String name, int chunkSize) {
+        return onEveryShard(() ->
+                forEachChunk((afterId, limit) -> productRepository.findIdsByNameLike(name, afterId, limit),
+                        chunkSize, this::deleteChunk));
+    }
+
+    public long deleteByIds(Collection<Long> ids, int chunkSize) {
+        return onShardsOf(ids, shardIds -> forEachChunk(shardIds, chunkSize, this::deleteChunk));
+    }
+
+    /**
+     * Delete every product of the category in chunks, then the category itself together with its
+     * {@code category_stats} row and its outbox event. With sharding the stats row is on the shard of the
+     * category and goes in a transaction of its own after the category.
+     */
+    public long deleteCategoryWithProducts(Long categoryId, int chunkSize) {
+        long deleted = deleteByCategory(categoryId, chunkSize);
+        int shard = shardRouter.shardFor(categoryId);
+        shardRouter.onShard(ShardContext.HOME, () -> transactionOperations.execute(transactionStatus -> {
+            // the bulk delete skips the entity listeners, add the event ourselves
+            if (categoryRepository.deleteCategoryUsingId(categoryId) > 0) {
+                OutboxChanges.of(entityManager.unwrap(SessionImplementor.class))
+                        .add(Category.class.getSimpleName(), categoryId, OutboxEvent.Type.DELETED, null);
+            }
+            if (shard == ShardContext.HOME) {
+                categoryStatsRepository.deleteStatsUsingCategoryId(categoryId);
+            }
+            return null;
+        }));
+        if (shard != ShardContext.HOME) {
+            shardRouter.onShard(shard, () -> categoryStatsRepository.deleteStatsUsingCategoryId(categoryId));
+        }
+        categoryReplicator.delete(List.of(categoryId));
+        return deleted;
+    }
+
+    /**
+     * Same as {@link #deleteCategoryWithProducts(Long, int)} on the async executor (virtual threads
+     * when {@code spring.threads.virtual.enabled=true}), the caller does not wait for the cleanup.
+     */
+    @Async
+    public CompletableFuture<Long> deleteCategoryWithProductsAsync(Long categoryId, int chunkSize) {
+        return CompletableFuture.completedFuture(deleteCategoryWithProducts(categoryId, chunkSize));
+    }
+
+    public long repriceByCategory(Long categoryId, long delta, int chunkSize) {
+        return shardRouter.onShard(shardRouter.shardFor(categoryId), () ->
+                forEachChunk((afterId, limit) -> productRepository.findIdsByCategoryId(categoryId, afterId, limit),
+                        chunkSize, ids -> repriceChunk(ids, delta)));
+    }
+
+    public long repriceByNameLike(String name, long delta, int chunkSize) {
+        return onEveryShard(() ->
+                forEachChunk((afterId, limit) -> productRepository.findIdsByNameLike(name, afterId, limit),
+                        chunkSize, ids -> repriceChunk(ids, delta)));
+    }
+
+    public long repriceByIds(Collection<Long> ids, long delta, int chunkSize) {
+        return onShardsOf(ids, shardIds -> forEachChunk(shardIds, chunkSize, chunk -> repriceChunk(chunk, delta)));
+    }
+
+    /**
+     * Only the ids still found are deleted and reported, missing ones were never touched.
+     */
+    private int deleteChunk(List<Long> chunk) {
+        Integer deleted = transactionOperations.execute(transactionStatus -> {
+            List<Long> ids = productRepository.findExistingIdsForUpdate(chunk);
+            return ids.isEmpty() ? 0 : productBulkStatements.delete(ids);
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    private int repriceChunk(List<Long> chunk, long delta) {
+        Integer updated = transactionOperations.execute(transactionStatus -> {
+            List<Long> ids = productRepository.findExistingIdsForUpdate(chunk);
+            return ids.isEmpty() ? 0 : productBulkStatements.addPrice(ids, delta);
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    private long onEveryShard(Supplier<Long> action) {
+        return shardRouter.shards()
+                .mapToLong(shard -> shardRouter.onShard(shard, action))
+                .sum();
+    }
+
+    private long onShardsOf(Collection<Long> ids, ToLongFunction<List<Long>> action) {
+        // ids that cannot exist are skipped like missing ones
+        Map<Integer, List<Long>> idsByShard = ids.stream()
+                .filter(shardRouter::isProductId)
+                .collect(Collectors.groupingBy(shardRouter::shardOf));
+        return idsByShard.entrySet().stream()
+                .mapToLong(entry -> shardRouter.onShard(entry.getKey(), () -> action.applyAsLong(entry.getValue())))
+                .sum();
+    }
+
+    private long forEachChunk(BiFunction<Long, Limit, List<Long>> nextIds, int chunkSize, ToIntFunction<List<Long>> action) {
+        checkChunkSize(chunkSize);
+
+        long affected = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = nextIds.apply(afterId, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                return affected;
+            }
+            affected += action.applyAsInt(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private long forEachChunk(Collection<Long> ids, int chunkSize, ToIntFunction<List<Long>> action) {
+        checkChunkSize(chunkSize);
+
+        long affected = 0;
+        List<Long> chunk = new ArrayList<>(Math.min(chunkSize, ids.size()));
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == chunkSize) {
+                affected += action.applyAsInt(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            affected += action.applyAsInt(chunk);
+        }
+        return affected;
+    }
+
+    private void checkChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package programmerzamannow.springdata.jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.history.ChangeHistoryBuffer;
+import programmerzamannow.springdata.jpa.history.ChangeHistoryChanges;
+import programmerzamannow.springdata.jpa.outbox.OutboxChanges;
+import programmerzamannow.springdata.jpa.price.PriceSnapshot;
+import programmerzamannow.springdata.jpa.price.PriceSnapshotChanges;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.stats.CategoryStatsChanges;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bulk JPQL statements on products together with what the entity listeners would have done for them. A bulk
+ * statement bypasses Hibernate Search and every listener, so each one here also reports its products to the category
+ * stats, the change history, the outbox and the price snapshot of the current transaction.
+ * <p>
+ * The statements stay here instead of in {@link ProductRepository}, so nothing can run them without that bookkeeping.
+ * Callers pass ids that exist and are locked, by {@link ProductRepository#findExistingIdsForUpdate} or by an earlier
+ * statement of the same transaction.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+class ProductBulkStatements {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PriceSnapshot priceSnapshot;
+
+    @Autowired
+    private ChangeHistoryBuffer changeHistoryBuffer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Add {@code delta} to the price of the products, a product without a price keeps it {@code null}.
+     *
+     * @return the number of updated products
+     */
+    public int addPrice(List<Long> ids, long delta) {
+        entityManager.flush();
+        int count = entityManager.createQuery("UPDATE Product p SET p.price = p.price + :delta, p.version = p.version + 1, " +
+                        "p.modifiedAt = :modifiedAt WHERE p.id IN :ids")
+                .setParameter("delta", delta)
+                .setParameter("modifiedAt", Instant.now())
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.clear();
+        if (count == 0) {
+            return 0;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        CategoryStatsChanges statsChanges = CategoryStatsChanges.of(session);
+        // a null price stays null, only products with a price move the sum
+        productRepository.sumByCategoryForIds(ids).forEach(total ->
+                statsChanges.adjusted(total.categoryId(), 0, 0, total.pricedCount() * delta));
+        // read after the UPDATE, the rows are locked until commit, so the old price is the new one less delta
+        ChangeHistoryChanges historyChanges = ChangeHistoryChanges.of(session, changeHistoryBuffer);
+        productRepository.findPricesByIdIn(ids).forEach(price -> historyChanges.add(
+                Product.class.getSimpleName(), price.id(), "price", price.price() - delta, price.price()));
+        report(session, ids, OutboxEvent.Type.UPDATED);
+        return count;
+    }
+
+    /**
+     * Delete the products and purge their search documents.
+     *
+     * @return the number of deleted products
+     */
+    public int delete(List<Long> ids) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        CategoryStatsChanges statsChanges = CategoryStatsChanges.of(session);
+        productRepository.sumByCategoryForIds(ids).forEach(total ->
+                statsChanges.adjusted(total.categoryId(), -total.productCount(), -total.pricedCount(), -total.priceSum()));
+        entityManager.flush();
+        int count = entityManager.createQuery("DELETE FROM Product p WHERE p.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.clear();
+        SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+        ids.forEach(id -> indexingPlan.purge(Product.class, id, null));
+        report(session, ids, OutboxEvent.Type.DELETED);
+        return count;
+    }
+
+    /**
+     * Bulk statements do not read the new price, the snapshot loads it again on its next refresh.
+     */
+    private void report(SessionImplementor session, List<Long> ids, OutboxEvent.Type type) {
+        OutboxChanges outboxChanges = OutboxChanges.of(session);
+        PriceSnapshotChanges priceChanges = PriceSnapshotChanges.of(session, priceSnapshot);
+        ids.forEach(id -> {
+            outboxChanges.add(Product.class.getSimpleName(), id, type, null);
+            priceChanges.invalidate(id);
+        });
+    }
+}
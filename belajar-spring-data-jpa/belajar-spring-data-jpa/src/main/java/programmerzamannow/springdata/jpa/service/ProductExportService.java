@@ -0,0 +1,134 @@
+package programmerzamannow.springdata.jpa.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ProductExportService {
+
+    private static final int CLEAR_INTERVAL = 1_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager platformTransactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    /**
+     * Write every product of the category straight to {@code outputStream}. Memory stays constant:
+     * rows come from a server-side cursor and the persistence context is cleared periodically. The cursor is opened
+     * in a read-only transaction on the shard of the category.
+     *
+     * @return number of exported products
+     */
+    public long export(Category category, Format format, OutputStream outputStream) {
+        TransactionTemplate transaction = new TransactionTemplate(platformTransactionManager);
+        transaction.setReadOnly(true);
+        return shardRouter.onShard(shardRouter.shardFor(category.getId()),
+                () -> transaction.execute(status -> write(category, format, outputStream)));
+    }
+
+    private long write(Category category, Format format, OutputStream outputStream) {
+        try (Stream<Product> stream = productRepository.streamAllByCategory(category)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            JsonGenerator generator = objectMapper.createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            if (format == Format.CSV) {
+                writer.write("id,name,price,category_id\n");
+            }
+
+            long count = 0;
+            Iterator<Product> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, product, category);
+                } else {
+                    writeJson(generator, writer, product, category);
+                }
+                entityManager.detach(product);
+
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+
+            generator.flush();
+            writer.flush();
+            return count;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void writeJson(JsonGenerator generator, Writer writer, Product product, Category category) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", product.getId());
+        generator.writeStringField("name", product.getName());
+        if (product.getPrice() == null) {
+            generator.writeNullField("price");
+        } else {
+            generator.writeNumberField("price", product.getPrice());
+        }
+        generator.writeNumberField("categoryId", category.getId());
+        generator.writeEndObject();
+        generator.flush();
+        writer.write('\n');
+    }
+
+    private void writeCsv(Writer writer, Product product, Category category) throws IOException {
+        writer.write(String.valueOf(product.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(product.getName()));
+        writer.write(',');
+        writer.write(product.getPrice() == null ? "" : String.valueOf(product.getPrice()));
+        writer.write(',');
+        writer.write(String.valueOf(category.getId()));
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
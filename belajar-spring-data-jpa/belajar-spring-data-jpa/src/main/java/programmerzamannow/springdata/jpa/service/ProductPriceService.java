@@ -0,0 +1,114 @@
+package programmerzamannow.springdata.jpa.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+
+@Service
+public class ProductPriceService {
+
+    private static final int MAX_ATTEMPTS = 20;
+
+    private static final long BASE_BACKOFF_MILLIS = 5;
+
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ProductBulkStatements productBulkStatements;
+
+    /**
+     * Single UPDATE statement, no row is read first so no lock is held across a round trip. Reported like a bulk
+     * reprice, see {@link ProductBulkStatements#addPrice}. Runs on the shard of the product.
+     *
+     * @return false when the product does not exist
+     */
+    public boolean addPrice(Long id, long delta) {
+        if (!shardRouter.isProductId(id)) {
+            return false;
+        }
+        return shardRouter.onShard(shardRouter.shardOf(id), () -> Boolean.TRUE.equals(transactionOperations.execute(transactionStatus -> {
+            // the statement locks the row, so only an existing product is reported
+            return productBulkStatements.addPrice(List.of(id), delta) == 1;
+        })));
+    }
+
+    /**
+     * Read-modify-write with {@code @Version} check. Each attempt runs in its own short transaction,
+     * a concurrent update makes the attempt fail and it is retried with exponential backoff and jitter. Runs on the
+     * shard of the product. A product without a price keeps it {@code null}, like the bulk reprice does,
+     * {@code change} is not called then.
+     *
+     * @return the new price, {@code null} when the product has none
+     * @throws OptimisticLockingFailureException when every attempt lost the race
+     */
+    public Long updatePrice(Long id, LongUnaryOperator change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return shardRouter.onShard(shardOf(id), () -> transactionOperations.execute(transactionStatus -> {
+                    Product product = productRepository.findById(id)
+                            .orElseThrow(() -> new IllegalArgumentException("Product " + id + " not found"));
+                    if (product.getPrice() == null) {
+                        return null;
+                    }
+                    product.setPrice(change.applyAsLong(product.getPrice()));
+                    productRepository.saveAndFlush(product);
+                    return product.getPrice();
+                }));
+            } catch (OptimisticLockingFailureException exception) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw exception;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * The old path, {@code SELECT ... FOR UPDATE} keeps the row locked until commit. Runs on the shard of the
+     * product. A {@code null} price stays {@code null}.
+     */
+    public Long updatePricePessimistic(Long id, LongUnaryOperator change) {
+        return shardRouter.onShard(shardOf(id), () -> transactionOperations.execute(transactionStatus -> {
+            Product product = productRepository.findFirstByIdEquals(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Product " + id + " not found"));
+            if (product.getPrice() != null) {
+                product.setPrice(change.applyAsLong(product.getPrice()));
+            }
+            return product.getPrice();
+        }));
+    }
+
+    private int shardOf(Long id) {
+        if (!shardRouter.isProductId(id)) {
+            throw new IllegalArgumentException("Product " + id + " not found");
+        }
+        return shardRouter.shardOf(id);
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying price update", exception);
+        }
+    }
+}
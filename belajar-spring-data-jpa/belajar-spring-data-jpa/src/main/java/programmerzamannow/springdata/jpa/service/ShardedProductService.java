@@ -0,0 +1,184 @@
+package programmerzamannow.springdata.jpa.service;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Product reads and writes that find their shard, see {@link ShardRouter}. A product is written to the shard of its
+ * category and found again by the shard in its id, queries over all products are sent to every shard and merged.
+ * With sharding disabled every call goes to the home database like plain {@link ProductRepository} calls.
+ */
+@Service
+public class ShardedProductService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    /**
+     * @throws IllegalArgumentException when an existing product is moved to a category on another shard, that
+     *                                  needs a delete and an insert under a new id
+     */
+    public Product save(Product product) {
+        int shard = shardRouter.shardFor(product.getCategory().getId());
+        if (product.getId() != null && shardRouter.shardOf(product.getId()) != shard) {
+            throw new IllegalArgumentException("Product " + product.getId() + " cannot move to category "
+                    + product.getCategory().getId() + " on shard " + shard);
+        }
+        return shardRouter.onShard(shard, () -> productRepository.save(product));
+    }
+
+    public Optional<Product> findById(Long id) {
+        if (!shardRouter.isProductId(id)) {
+            return Optional.empty();
+        }
+        return shardRouter.onShard(shardRouter.shardOf(id), () -> productRepository.findById(id));
+    }
+
+    public void deleteById(Long id) {
+        if (!shardRouter.isProductId(id)) {
+            return;
+        }
+        shardRouter.onShard(shardRouter.shardOf(id), () -> {
+            productRepository.deleteById(id);
+            return null;
+        });
+    }
+
+    public long count() {
+        return shardRouter.fanOut(shard -> productRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Same result as {@code ProductRepository.countByCategory_name}. Several categories may share a name and live
+     * on different shards, so every shard is asked.
+     */
+    public long countByCategoryName(String name) {
+        return shardRouter.fanOut(shard -> productRepository.countByCategory_name(name)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Same result as {@code ProductRepository.findAllByCategory_Name}, still coalesced per shard. Categories sharing
+     * the name may live on different shards, so every shard is asked.
+     */
+    public List<Product> findAllByCategoryName(String name) {
+        return shardRouter.fanOut(shard -> productRepository.findAllByCategory_Name(name)).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Same result as {@code ProductRepository.findAllSummaryByCategoryName} ordered by id.
+     */
+    public List<ProductSummary> findAllSummaryByCategoryName(String name) {
+        return shardRouter.fanOut(shard -> productRepository.findAllSummaryByCategoryName(name, Sort.by("id"))).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(ProductSummary::id))
+                .toList();
+    }
+
+    /**
+     * Same pages as {@code ProductRepository.scrollByCategoryName}, see {@link #scroll(Sort, int, IntFunction)}.
+     */
+    public KeysetPage<Product> scrollByCategoryName(String name, String token, int size) {
+        ScrollPosition position = KeysetPage.decode(token);
+        return scroll(Sort.by("id"), size, shard ->
+                productRepository.findAllByCategory_NameOrderByIdAsc(name, position, Limit.of(size)));
+    }
+
+    /**
+     * Same pages as {@code ProductRepository.scrollByCategoryNameOrderByPrice}, products without a price are left
+     * out.
+     */
+    public KeysetPage<Product> scrollByCategoryNameOrderByPrice(String name, String token, int size) {
+        ScrollPosition position = KeysetPage.decode(token);
+        return scroll(Sort.by("price", "id"), size, shard ->
+                productRepository.findAllByCategory_NameAndPriceNotNullOrderByPriceAscIdAsc(name, position, Limit.of(size)));
+    }
+
+    /**
+     * Same result as {@code ProductRepository.searchProduct}. Every shard returns its first
+     * {@code offset + size} matches in the requested order, the merge keeps the first {@code size} after
+     * {@code offset}. Deep pages read {@code offset + size} rows from every shard, use keyset paging for those.
+     * The id breaks ties, so the order is stable across pages.
+     */
+    public Page<Product> searchProduct(String name, Pageable pageable) {
+        Sort sort = pageable.getSort().and(Sort.by("id"));
+        Pageable shardPage = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), sort);
+        List<Page<Product>> pages = shardRouter.fanOut(shard -> productRepository.searchProduct(name, shardPage));
+
+        List<Product> content = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(comparator(sort))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Every shard reads its next {@code size} rows after the token, the page is the first {@code size} of them in
+     * {@code sort} order and the token points after its last row. There is more to read when rows were left over or
+     * a shard had more than {@code size}.
+     */
+    private KeysetPage<Product> scroll(Sort sort, int size, IntFunction<Window<Product>> query) {
+        List<Window<Product>> windows = shardRouter.fanOut(query);
+        List<Product> rows = windows.stream()
+                .flatMap(Window::stream)
+                .sorted(comparator(sort))
+                .toList();
+        List<Product> content = rows.stream().limit(size).toList();
+        if (content.isEmpty() || (rows.size() <= size && windows.stream().noneMatch(Window::hasNext))) {
+            return new KeysetPage<>(content, null);
+        }
+
+        BeanWrapperImpl last = new BeanWrapperImpl(content.get(content.size() - 1));
+        Map<String, Object> keys = new LinkedHashMap<>();
+        sort.forEach(order -> keys.put(order.getProperty(), last.getPropertyValue(order.getProperty())));
+        return new KeysetPage<>(content, KeysetPage.encode(ScrollPosition.forward(keys)));
+    }
+
+    /**
+     * Orders loaded products like the database did, by their properties, nulls first as MySQL sorts them.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Product> comparator(Sort sort) {
+        return sort.stream()
+                .map(order -> {
+                    Comparator<Product> comparator = Comparator.comparing(
+                            product -> (Comparable) new BeanWrapperImpl(product).getPropertyValue(order.getProperty()),
+                            Comparator.nullsFirst(Comparator.naturalOrder()));
+                    return order.isDescending() ? comparator.reversed() : comparator;
+                })
+                .reduce(Comparator::thenComparing)
+                .orElseThrow();
+    }
+}
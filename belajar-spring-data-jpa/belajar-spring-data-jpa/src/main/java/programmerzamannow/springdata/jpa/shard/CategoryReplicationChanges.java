@@ -0,0 +1,49 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import programmerzamannow.springdata.jpa.changes.SessionChanges;
+import programmerzamannow.springdata.jpa.entity.Category;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Categories written by one transaction, copied to the other shards once it committed and dropped when it rolled
+ * back. A category saved several times is copied once, with its last state.
+ */
+public class CategoryReplicationChanges extends SessionChanges {
+
+    private final CategoryReplicator replicator;
+
+    private final Map<Long, Category> upserts = new LinkedHashMap<>();
+
+    private final Set<Long> deletes = new LinkedHashSet<>();
+
+    private CategoryReplicationChanges(CategoryReplicator replicator) {
+        this.replicator = replicator;
+    }
+
+    public static CategoryReplicationChanges of(SessionImplementor session, CategoryReplicator replicator) {
+        return of(session, CategoryReplicationChanges.class, () -> new CategoryReplicationChanges(replicator));
+    }
+
+    public void upsert(Category category) {
+        deletes.remove(category.getId());
+        upserts.put(category.getId(), category);
+    }
+
+    public void delete(Long id) {
+        upserts.remove(id);
+        deletes.add(id);
+    }
+
+    @Override
+    protected void afterCompletion(boolean committed) {
+        if (committed) {
+            replicator.upsert(upserts.values());
+            replicator.delete(deletes);
+        }
+    }
+}
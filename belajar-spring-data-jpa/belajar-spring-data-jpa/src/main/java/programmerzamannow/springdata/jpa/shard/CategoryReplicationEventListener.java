@@ -0,0 +1,49 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import programmerzamannow.springdata.jpa.entity.Category;
+
+/**
+ * Collects category inserts, updates and deletes for {@link CategoryReplicator}. Bulk JPQL statements skip these
+ * events, their callers replicate themselves.
+ */
+public class CategoryReplicationEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final CategoryReplicator replicator;
+
+    public CategoryReplicationEventListener(CategoryReplicator replicator) {
+        this.replicator = replicator;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Category category && replicator.isEnabled()) {
+            CategoryReplicationChanges.of(event.getSession(), replicator).upsert(category);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Category category && replicator.isEnabled()) {
+            CategoryReplicationChanges.of(event.getSession(), replicator).upsert(category);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Category category && replicator.isEnabled()) {
+            CategoryReplicationChanges.of(event.getSession(), replicator).delete(category.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
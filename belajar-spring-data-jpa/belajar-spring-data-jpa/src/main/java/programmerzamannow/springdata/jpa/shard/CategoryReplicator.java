@@ -0,0 +1,115 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import programmerzamannow.springdata.jpa.entity.Category;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Every shard holds a copy of {@code categories}, products reference their category with a foreign key and the
+ * search queries join it. Categories are written on the home shard and copied to the other shards once the writing
+ * transaction committed, a copy that fails is logged and counted, {@link #replicateAll()} on the next start repairs
+ * it. With one shard there is nothing to copy.
+ */
+@Slf4j
+@Component
+public class CategoryReplicator {
+
+    private static final String UPSERT = """
+            INSERT INTO categories (id, name, created_date, last_modified_date) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE name = VALUES(name), created_date = VALUES(created_date),
+                last_modified_date = VALUES(last_modified_date)""";
+
+    private static final String DELETE = "DELETE FROM categories WHERE id = ?";
+
+    private static final String SELECT_ALL = "SELECT id, name, created_date, last_modified_date FROM categories";
+
+    private final DataSource dataSource;
+
+    private final ShardRouter shardRouter;
+
+    private final Counter failures;
+
+    public CategoryReplicator(DataSource dataSource, ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.failures = meterRegistry.counter("db.shard.replication.failures");
+    }
+
+    public boolean isEnabled() {
+        return shardRouter.shardCount() > 1;
+    }
+
+    public void upsert(Collection<Category> categories) {
+        List<Object[]> rows = categories.stream()
+                .map(category -> new Object[]{category.getId(), category.getName(),
+                        timestamp(category.getCreatedDate()), timestamp(category.getLastModifiedDate())})
+                .toList();
+        write(UPSERT, rows);
+    }
+
+    public void delete(Collection<Long> categoryIds) {
+        write(DELETE, categoryIds.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    /**
+     * Copy every category of the home shard to the other shards.
+     */
+    public void replicateAll() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        ShardContext.run(ShardContext.HOME, () -> {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement select = connection.prepareStatement(SELECT_ALL);
+                 ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(new Object[]{resultSet.getLong(1), resultSet.getString(2),
+                            resultSet.getTimestamp(3), resultSet.getTimestamp(4)});
+                }
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Could not read the categories of the home shard", exception);
+            }
+        });
+        write(UPSERT, rows);
+        log.info("Copied {} categories to {} shards", rows.size(), shardRouter.shardCount() - 1);
+    }
+
+    private void write(String sql, List<Object[]> rows) {
+        if (!isEnabled() || rows.isEmpty()) {
+            return;
+        }
+        shardRouter.shards().filter(shard -> shard != ShardContext.HOME).forEach(shard -> ShardContext.run(shard, () -> {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        statement.setObject(i + 1, row[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            } catch (SQLException exception) {
+                failures.increment(rows.size());
+                log.error("Could not copy {} categories to shard {}", rows.size(), shard, exception);
+            }
+        }));
+    }
+
+    private Timestamp timestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+}
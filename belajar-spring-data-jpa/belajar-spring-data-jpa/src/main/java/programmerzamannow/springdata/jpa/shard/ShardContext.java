@@ -0,0 +1,47 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on, read by {@code ShardRoutingDataSource} when a connection is taken and by
+ * {@link ShardedSequenceGenerator} for new product ids. Without a shard set everything runs on {@link #HOME}, the
+ * {@code spring.datasource} database, which is also the only shard when sharding is disabled.
+ * <p>
+ * A transaction keeps the connection it started with, so the shard has to be chosen before the transaction begins,
+ * see {@link ShardRouter#onShard(int, Supplier)}.
+ */
+public final class ShardContext {
+
+    public static final int HOME = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? HOME : shard;
+    }
+
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
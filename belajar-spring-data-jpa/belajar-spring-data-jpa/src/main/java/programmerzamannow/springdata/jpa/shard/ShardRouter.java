@@ -0,0 +1,131 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Where product rows live. All products of a category are on {@link #shardFor(Long)} of the category id, so queries
+ * by category go to one shard, and a product id carries its shard, see {@link ShardedSequenceGenerator}. Queries
+ * over every product {@link #fanOut(IntFunction)} to all shards in parallel.
+ * <p>
+ * The category to shard mapping is {@code category_id mod shards}, adding a shard moves categories and needs their
+ * products copied first. With sharding disabled there is one shard and everything runs inline on the home database.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    private final Duration fanOutTimeout;
+
+    private final Timer fanOutTimer;
+
+    public ShardRouter(int shardCount, Duration fanOutTimeout, MeterRegistry meterRegistry) {
+        if (shardCount < 1 || shardCount > 1 << (Long.SIZE - 1 - ShardedSequenceGenerator.SHARD_SHIFT)) {
+            throw new IllegalArgumentException("Unsupported number of shards: " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.fanOutTimeout = fanOutTimeout;
+        this.fanOutTimer = Timer.builder("db.shard.fanout")
+                .description("Queries sent to every shard, until the slowest shard answered")
+                .register(meterRegistry);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public IntStream shards() {
+        return IntStream.range(0, shardCount);
+    }
+
+    public int shardFor(Long categoryId) {
+        return (int) Math.floorMod(categoryId, (long) shardCount);
+    }
+
+    /**
+     * Whether {@code productId} can name a product at all, positive and with the bits of an existing shard. Other
+     * ids do not exist anywhere, callers answer not found instead of routing them.
+     */
+    public boolean isProductId(Long productId) {
+        return productId != null && productId > 0 && (productId >>> ShardedSequenceGenerator.SHARD_SHIFT) < shardCount;
+    }
+
+    /**
+     * @throws IllegalArgumentException when {@code productId} is not a {@link #isProductId(Long) product id}
+     */
+    public int shardOf(Long productId) {
+        if (!isProductId(productId)) {
+            throw new IllegalArgumentException("Not a product id: " + productId);
+        }
+        return (int) (productId >>> ShardedSequenceGenerator.SHARD_SHIFT);
+    }
+
+    /**
+     * Run {@code action} with connections from {@code shard}. Inside a transaction only its own shard is allowed,
+     * its connection is already taken and the action would silently run on the wrong shard.
+     *
+     * @throws IllegalStateException when called inside a transaction on another shard
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        if (shard != ShardContext.current() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch from shard " + ShardContext.current() + " to shard " + shard
+                    + " inside a transaction");
+        }
+        return ShardContext.call(shard, action);
+    }
+
+    /**
+     * Run {@code query} on every shard at once, each on its own virtual thread and in its own transactions, and
+     * return the results in shard order. The first failing shard fails the whole query.
+     *
+     * @throws QueryTimeoutException when a shard did not answer within {@code app.datasource.shards.fan-out-timeout}
+     */
+    public <T> List<T> fanOut(IntFunction<T> query) {
+        if (shardCount == 1) {
+            return List.of(onShard(ShardContext.HOME, () -> query.apply(ShardContext.HOME)));
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + fanOutTimeout.toNanos();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-fanout-", 0).factory());
+        try {
+            List<Future<T>> futures = shards()
+                    .mapToObj(shard -> executor.submit(() -> ShardContext.call(shard, () -> query.apply(shard))))
+                    .toList();
+            List<T> results = new ArrayList<>(shardCount);
+            for (Future<T> future : futures) {
+                results.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException exception) {
+            throw new QueryTimeoutException("Shard fan-out took longer than " + fanOutTimeout, exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard query failed", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", exception);
+        } finally {
+            // does not wait, a shard that is still running after a failure is interrupted and its result dropped
+            executor.shutdownNow();
+            fanOutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Prepares shards 1 to n on startup. When the home schema is generated by {@code ddl-auto=create} the same tables
+ * are created on every shard, otherwise each shard is migrated by Flyway like the home database before the
+ * application starts. Then the categories are copied over, which also repairs copies missed while a shard was
+ * unreachable.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.datasource.shards.enabled", havingValue = "true")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Set<String> CREATE = Set.of("create", "create-drop");
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ShardRouter shardRouter;
+
+    private final CategoryReplicator categoryReplicator;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory, ShardRouter shardRouter,
+                                  CategoryReplicator categoryReplicator) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.shardRouter = shardRouter;
+        this.categoryReplicator = categoryReplicator;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Object ddlAuto = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+        if (ddlAuto != null && CREATE.contains(ddlAuto.toString())) {
+            shardRouter.shards().filter(shard -> shard != ShardContext.HOME).forEach(shard -> {
+                log.info("Creating the schema of shard {}", shard);
+                ShardContext.run(shard, () -> sessionFactory.getSchemaManager().exportMappedObjects(true));
+            });
+        }
+        categoryReplicator.replicateAll();
+    }
+}
@@ -0,0 +1,22 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Like {@code @SequenceGenerator} with a pooled sequence, with the shard the row is inserted on in the high bits of
+ * the id, see {@link ShardedSequenceGenerator}.
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardedSequence {
+
+    String name();
+
+    int allocationSize() default 50;
+}
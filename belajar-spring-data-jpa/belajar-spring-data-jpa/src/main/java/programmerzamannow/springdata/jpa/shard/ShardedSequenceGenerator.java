@@ -0,0 +1,75 @@
+package programmerzamannow.springdata.jpa.shard;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Globally unique ids without a central counter: every shard has its own copy of the sequence, and the id is the
+ * sequence value with the shard in the bits from {@link #SHARD_SHIFT} up. The shard of a row can be read back from
+ * its id, {@link ShardRouter#shardOf(Long)}. On the home shard the id is the plain sequence value, so ids do not
+ * change when sharding is disabled and rows from before sharding stay where they are.
+ * <p>
+ * The sequence is read on the connection of the current shard, each shard gets its own pooled optimizer so blocks
+ * of values are never handed out on another shard.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    /**
+     * 2^48 ids per shard, up to 32767 shards.
+     */
+    public static final int SHARD_SHIFT = 48;
+
+    private final ShardedSequence config;
+
+    private final Map<Integer, Optimizer> shardOptimizers = new ConcurrentHashMap<>();
+
+    private OptimizerDescriptor optimizerDescriptor;
+
+    public ShardedSequenceGenerator(ShardedSequence config, Member member, CustomIdGeneratorCreationContext creationContext) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.put(SEQUENCE_PARAM, config.name());
+        parameters.put(OptimizableGenerator.INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    protected OptimizerDescriptor determineOptimizationStrategy(Properties parameters, int incrementSize) {
+        optimizerDescriptor = super.determineOptimizationStrategy(parameters, incrementSize);
+        return optimizerDescriptor;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        int shard = ShardContext.current();
+        Optimizer optimizer = shard == ShardContext.HOME ? getOptimizer() : shardOptimizers.computeIfAbsent(shard,
+                key -> OptimizerFactory.buildOptimizer(optimizerDescriptor, getIdentifierType().getReturnedClass(),
+                        getOptimizer().getIncrementSize(), -1));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return ((long) shard << SHARD_SHIFT) | value;
+    }
+
+    /**
+     * {@code INSERT ... SELECT} would take plain sequence values without the shard.
+     */
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package programmerzamannow.springdata.jpa.stats;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import programmerzamannow.springdata.jpa.changes.SessionChanges;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Product changes of one transaction summed up per category, written to {@code category_stats} with one statement
+ * per category right before the transaction commits, after the last flush. Count and sum are applied as deltas. Min
+ * and max are widened in place for new prices, and only read again from the {@code (category_id, price)} index when
+ * the price that left the category was the current bound. A category without a stats row yet gets it computed from
+ * scratch.
+ * <p>
+ * Categories are written in id order so two transactions touching the same categories cannot deadlock on them.
+ */
+public class CategoryStatsChanges extends SessionChanges {
+
+    private static final String APPLY_DELTA = """
+            UPDATE category_stats SET
+                product_count = product_count + ?,
+                priced_count = priced_count + ?,
+                price_sum = price_sum + ?,
+                min_price = CASE WHEN min_price >= ? THEN (SELECT MIN(p.price) FROM product p WHERE p.category_id = ?)
+                    ELSE COALESCE(LEAST(min_price, ?), min_price, ?) END,
+                max_price = CASE WHEN max_price <= ? THEN (SELECT MAX(p.price) FROM product p WHERE p.category_id = ?)
+                    ELSE COALESCE(GREATEST(max_price, ?), max_price, ?) END
+            WHERE category_id = ?""";
+
+    private static final String RECOMPUTE = """
+            INSERT INTO category_stats (category_id, product_count, priced_count, price_sum, min_price, max_price)
+            SELECT c.id, COUNT(p.id), COUNT(p.price), COALESCE(SUM(p.price), 0), MIN(p.price), MAX(p.price)
+            FROM categories c LEFT JOIN product p ON p.category_id = c.id WHERE c.id = ? GROUP BY c.id
+            ON DUPLICATE KEY UPDATE product_count = VALUES(product_count), priced_count = VALUES(priced_count),
+                price_sum = VALUES(price_sum), min_price = VALUES(min_price), max_price = VALUES(max_price)""";
+
+    private final Map<Long, Change> changes = new TreeMap<>();
+
+    private CategoryStatsChanges() {
+    }
+
+    public static CategoryStatsChanges of(SessionImplementor session) {
+        return of(session, CategoryStatsChanges.class, CategoryStatsChanges::new);
+    }
+
+    public void added(Long categoryId, Long price) {
+        if (categoryId != null) {
+            changes.computeIfAbsent(categoryId, id -> new Change()).add(price);
+        }
+    }
+
+    public void removed(Long categoryId, Long price) {
+        if (categoryId != null) {
+            changes.computeIfAbsent(categoryId, id -> new Change()).remove(price);
+        }
+    }
+
+    /**
+     * Change coming from a bulk statement that bypassed the persistence context, the price range is read again.
+     */
+    public void adjusted(Long categoryId, long countDelta, long pricedDelta, long sumDelta) {
+        if (categoryId != null) {
+            Change change = changes.computeIfAbsent(categoryId, id -> new Change());
+            change.count += countDelta;
+            change.priced += pricedDelta;
+            change.sum += sumDelta;
+            change.removedMin = Long.MIN_VALUE;
+            change.removedMax = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * The change to the category is unknown, its stats are computed from scratch.
+     */
+    public void recount(Long categoryId) {
+        if (categoryId != null) {
+            changes.computeIfAbsent(categoryId, id -> new Change()).recount = true;
+        }
+    }
+
+    @Override
+    protected void beforeCommit(SessionImplementor session) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        try (PreparedStatement applyDelta = connection.prepareStatement(APPLY_DELTA);
+             PreparedStatement recompute = connection.prepareStatement(RECOMPUTE)) {
+            for (Map.Entry<Long, Change> entry : changes.entrySet()) {
+                apply(entry.getKey(), entry.getValue(), applyDelta, recompute);
+            }
+        } catch (SQLException exception) {
+            throw new HibernateException("Could not update category_stats", exception);
+        }
+    }
+
+    private void apply(Long categoryId, Change change, PreparedStatement applyDelta, PreparedStatement recompute)
+            throws SQLException {
+        if (!change.recount) {
+            applyDelta.setLong(1, change.count);
+            applyDelta.setLong(2, change.priced);
+            applyDelta.setLong(3, change.sum);
+            setNullableLong(applyDelta, 4, change.removedMin);
+            applyDelta.setLong(5, categoryId);
+            setNullableLong(applyDelta, 6, change.addedMin);
+            setNullableLong(applyDelta, 7, change.addedMin);
+            setNullableLong(applyDelta, 8, change.removedMax);
+            applyDelta.setLong(9, categoryId);
+            setNullableLong(applyDelta, 10, change.addedMax);
+            setNullableLong(applyDelta, 11, change.addedMax);
+            applyDelta.setLong(12, categoryId);
+            if (applyDelta.executeUpdate() > 0) {
+                return;
+            }
+        }
+        recompute.setLong(1, categoryId);
+        recompute.executeUpdate();
+    }
+
+    private void setNullableLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static class Change {
+
+        private long count;
+
+        private long priced;
+
+        private long sum;
+
+        private Long addedMin;
+
+        private Long addedMax;
+
+        private Long removedMin;
+
+        private Long removedMax;
+
+        private boolean recount;
+
+        private void add(Long price) {
+            count++;
+            if (price != null) {
+                priced++;
+                sum += price;
+                addedMin = addedMin == null ? price : Math.min(addedMin, price);
+                addedMax = addedMax == null ? price : Math.max(addedMax, price);
+            }
+        }
+
+        private void remove(Long price) {
+            count--;
+            if (price != null) {
+                priced--;
+                sum -= price;
+                removedMin = removedMin == null ? price : Math.min(removedMin, price);
+                removedMax = removedMax == null ? price : Math.max(removedMax, price);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package programmerzamannow.springdata.jpa.stats;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Feeds every product insert, delete and price or category change into the {@link CategoryStatsChanges} of the
+ * running transaction. Bulk JPQL statements skip these events, their callers report to
+ * {@link CategoryStatsChanges#adjusted(Long, long, long, long)} or leave it to the reconciliation.
+ */
+public class CategoryStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            CategoryStatsChanges.of(event.getSession()).added(categoryId(product.getCategory()), product.getPrice());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Product product)) {
+            return;
+        }
+        CategoryStatsChanges changes = CategoryStatsChanges.of(event.getSession());
+        Long categoryId = categoryId(product.getCategory());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // merged detached instance, the old values are unknown
+            changes.recount(categoryId);
+            return;
+        }
+
+        EntityPersister persister = event.getPersister();
+        Long oldPrice = (Long) oldState[propertyIndex(persister, "price")];
+        Long oldCategoryId = categoryId(oldState[propertyIndex(persister, "category")]);
+        if (!Objects.equals(oldPrice, product.getPrice()) || !Objects.equals(oldCategoryId, categoryId)) {
+            changes.removed(oldCategoryId, oldPrice);
+            changes.added(categoryId, product.getPrice());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            CategoryStatsChanges.of(event.getSession()).removed(categoryId(product.getCategory()), product.getPrice());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private int propertyIndex(EntityPersister persister, String property) {
+        return Arrays.asList(persister.getPropertyNames()).indexOf(property);
+    }
+
+    private Long categoryId(Object category) {
+        if (category instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getInternalIdentifier();
+        }
+        return category == null ? null : ((Category) category).getId();
+    }
+}
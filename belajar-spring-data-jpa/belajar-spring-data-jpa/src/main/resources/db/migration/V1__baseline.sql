@@ -0,0 +1,88 @@
+-- Schema as of the fast-start profile, the same tables ddl-auto=update creates from the entities.
+-- MySQL has no sequences, Hibernate emulates category_seq and product_seq with one row tables.
+
+CREATE TABLE categories (
+    id                 BIGINT       NOT NULL,
+    name               VARCHAR(255),
+    created_date       DATETIME(6),
+    last_modified_date DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE category_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO category_seq VALUES (1);
+
+CREATE TABLE product (
+    id          BIGINT NOT NULL,
+    name        VARCHAR(255),
+    price       BIGINT,
+    version     BIGINT NOT NULL,
+    category_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT product_category_fk FOREIGN KEY (category_id) REFERENCES categories (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX product_category_price_idx ON product (category_id, price);
+
+CREATE TABLE product_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO product_seq VALUES (1);
+
+CREATE TABLE category_stats (
+    category_id   BIGINT NOT NULL,
+    product_count BIGINT NOT NULL,
+    price_sum     BIGINT NOT NULL,
+    min_price     BIGINT,
+    max_price     BIGINT,
+    PRIMARY KEY (category_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE batch_job (
+    name        VARCHAR(255) NOT NULL,
+    first_id    BIGINT,
+    last_id     BIGINT,
+    chunk_size  INTEGER      NOT NULL,
+    status      ENUM ('COMPLETED','FAILED','RUNNING') NOT NULL,
+    started_at  DATETIME(6),
+    finished_at DATETIME(6),
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE batch_job_chunk (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    job_name     VARCHAR(255) NOT NULL,
+    chunk_start  BIGINT       NOT NULL,
+    chunk_end    BIGINT       NOT NULL,
+    products     INTEGER      NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT batch_job_chunk_job_start_uk UNIQUE (job_name, chunk_start)
+) ENGINE = InnoDB;
+
+CREATE TABLE outbox_event (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    aggregate_type VARCHAR(255) NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     ENUM ('CREATED','DELETED','UPDATED') NOT NULL,
+    payload        VARCHAR(2000),
+    created_at     DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE change_history (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    entity_type VARCHAR(255) NOT NULL,
+    entity_id   BIGINT       NOT NULL,
+    property    VARCHAR(255) NOT NULL,
+    old_value   VARCHAR(255),
+    new_value   VARCHAR(255),
+    changed_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX change_history_entity_idx ON change_history (entity_type, entity_id, property, id);
@@ -0,0 +1,9 @@
+-- Databases baselined at V1 keep the rows inserted while ids came from AUTO_INCREMENT, move the sequences past them.
+-- The pooled optimizer uses the 49 ids below the value it reads, SequenceInitializer does the same on startup.
+-- Product ids carry the shard from bit 48 up, the sequence of a shard only counts the bits below.
+
+UPDATE category_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM categories));
+
+UPDATE product_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(MOD(id, 281474976710656)), 0) + 51 FROM product));
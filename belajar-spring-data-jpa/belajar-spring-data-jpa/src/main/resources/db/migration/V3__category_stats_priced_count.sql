@@ -0,0 +1,7 @@
+-- The average price divides price_sum by the products that have a price, product_count also counts the ones without.
+
+ALTER TABLE category_stats
+    ADD COLUMN priced_count BIGINT NOT NULL DEFAULT 0 AFTER product_count;
+
+UPDATE category_stats s
+SET priced_count = (SELECT COUNT(p.price) FROM product p WHERE p.category_id = s.category_id);
@@ -0,0 +1,6 @@
+-- Every node catches its price snapshot up with the products modified since its last refresh, see PriceSnapshot.
+
+ALTER TABLE product
+    ADD COLUMN modified_at DATETIME(6) NULL;
+
+CREATE INDEX product_modified_at_idx ON product (modified_at);
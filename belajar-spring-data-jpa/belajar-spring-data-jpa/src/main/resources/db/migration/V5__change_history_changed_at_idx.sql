@@ -0,0 +1,5 @@
+-- History is read newest first by changed_at, records replayed from the spill file get ids after newer ones.
+
+DROP INDEX change_history_entity_idx ON change_history;
+
+CREATE INDEX change_history_entity_idx ON change_history (entity_type, entity_id, property, changed_at, id);
@@ -0,0 +1,95 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+
+@SpringBootTest
+public class CategoryCacheTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Test
+    void findByIdHitsSecondLevelCache() {
+        Category category = new Category();
+        category.setName("CACHE BY ID");
+        categoryRepository.save(category);
+
+        CacheRegionStatistics statistics = statistics().getDomainDataRegionStatistics("category");
+        long hits = statistics.getHitCount();
+
+        categoryRepository.findById(category.getId()).orElseThrow();
+        categoryRepository.findById(category.getId()).orElseThrow();
+
+        Assertions.assertTrue(statistics.getHitCount() >= hits + 2);
+
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void findFirstByNameEqualsHitsQueryCache() {
+        Category category = new Category();
+        category.setName("CACHE BY NAME");
+        categoryRepository.save(category);
+
+        CacheRegionStatistics statistics = statistics().getQueryRegionStatistics("category-query");
+        long hits = statistics.getHitCount();
+
+        // in a transaction the lookups skip the request coalescer, the second one would not reach the query cache
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            categoryRepository.findFirstByNameEquals("CACHE BY NAME").orElseThrow();
+            categoryRepository.findFirstByNameEquals("CACHE BY NAME").orElseThrow();
+        });
+
+        Assertions.assertEquals(hits + 1, statistics.getHitCount());
+
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void updateInvalidatesCachedLookups() {
+        Category category = new Category();
+        category.setName("CACHE BEFORE");
+        categoryRepository.save(category);
+        categoryRepository.findFirstByNameEquals("CACHE BEFORE").orElseThrow();
+
+        category.setName("CACHE AFTER");
+        categoryRepository.save(category);
+
+        Assertions.assertTrue(categoryRepository.findFirstByNameEquals("CACHE BEFORE").isEmpty());
+        Assertions.assertEquals("CACHE AFTER", categoryRepository.findById(category.getId()).orElseThrow().getName());
+
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void metrics() {
+        Assertions.assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", "category")
+                .tag("result", "hit")
+                .functionCounter());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,155 @@
+package programmerzamannow.springdata.jpa;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.CategoryStats;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.CategoryStatsService;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+public class CategoryStatsTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryStatsService categoryStatsService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Category category;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("STATS");
+        categoryRepository.save(category);
+
+        products = new ArrayList<>();
+        for (long price = 100; price <= 300; price += 100) {
+            Product product = new Product();
+            product.setName("Stats " + price);
+            product.setPrice(price);
+            product.setCategory(category);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void insertsAreCounted() {
+        assertStats(3, 600, 100L, 300L);
+        Assertions.assertEquals(2.0, stats().getAveragePrice() / 100);
+        Assertions.assertEquals(productRepository.countByCategory_name("STATS"), categoryStatsService.countProducts("STATS"));
+    }
+
+    @Test
+    void priceChangeMovesTheRange() {
+        productPriceService.updatePrice(products.get(0).getId(), price -> 150L);
+        assertStats(3, 650, 150L, 300L);
+
+        productPriceService.updatePrice(products.get(2).getId(), price -> 500L);
+        assertStats(3, 850, 150L, 500L);
+    }
+
+    @Test
+    void deleteShrinksTheRange() {
+        productRepository.delete(products.get(2));
+        assertStats(2, 300, 100L, 200L);
+
+        productRepository.deleteAll(products.subList(0, 2));
+        assertStats(0, 0, null, null);
+    }
+
+    @Test
+    void bulkStatementsAreCounted() {
+        productBulkService.repriceByCategory(category.getId(), 10, 2);
+        assertStats(3, 630, 110L, 310L);
+
+        productBulkService.deleteByIds(List.of(products.get(0).getId()), 2);
+        assertStats(2, 520, 210L, 310L);
+    }
+
+    @Test
+    void atomicPriceUpdateIsCounted() {
+        productPriceService.addPrice(products.get(1).getId(), 1000);
+        assertStats(3, 1600, 100L, 1200L);
+    }
+
+    @Test
+    void productsWithoutPriceAreLeftOutOfTheAverage() {
+        Product product = new Product();
+        product.setName("Stats without price");
+        product.setCategory(category);
+        productRepository.save(product);
+
+        assertStats(4, 600, 100L, 300L);
+        Assertions.assertEquals(3, stats().getPricedCount());
+        Assertions.assertEquals(2.0, stats().getAveragePrice() / 100);
+    }
+
+    @Test
+    void deletedCategoryLeavesNoStats() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 2);
+        Assertions.assertTrue(categoryStatsService.getStats(category.getId()).isEmpty());
+    }
+
+    @Test
+    void reconcileCatchesUpWithUntrackedUpdates() {
+        // a statement of its own passes none of the listeners
+        transactionOperations.executeWithoutResult(transactionStatus -> entityManager.createQuery(
+                        "UPDATE Product p SET p.price = p.price + 1000 WHERE p.id = :id")
+                .setParameter("id", products.get(1).getId())
+                .executeUpdate());
+        assertStats(3, 600, 100L, 300L);
+
+        Assertions.assertTrue(categoryStatsService.reconcile() >= 1);
+        assertStats(3, 1600, 100L, 1200L);
+    }
+
+    private void assertStats(long count, long sum, Long min, Long max) {
+        CategoryStats stats = stats();
+        Assertions.assertEquals(count, stats.getProductCount());
+        Assertions.assertEquals(sum, stats.getPriceSum());
+        Assertions.assertEquals(min, stats.getMinPrice());
+        Assertions.assertEquals(max, stats.getMaxPrice());
+    }
+
+    private CategoryStats stats() {
+        return categoryStatsService.getStats(category.getId()).orElseThrow();
+    }
+}
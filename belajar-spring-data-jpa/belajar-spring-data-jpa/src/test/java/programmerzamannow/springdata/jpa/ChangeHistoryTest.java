@@ -0,0 +1,213 @@
+package programmerzamannow.springdata.jpa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.ChangeHistory;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.history.ChangeHistoryBuffer;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ChangeHistoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ChangeHistoryService;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class ChangeHistoryTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ChangeHistoryService changeHistoryService;
+
+    @Autowired
+    private ChangeHistoryBuffer changeHistoryBuffer;
+
+    @Autowired
+    private ChangeHistoryRepository changeHistoryRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Category category;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("HISTORY");
+        categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("History Product");
+        product.setPrice(100L);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void priceChangesArePagedNewestFirst() {
+        productPriceService.updatePrice(product.getId(), price -> 150L);
+        productPriceService.updatePrice(product.getId(), price -> 200L);
+        changeHistoryBuffer.flush();
+
+        KeysetPage<ChangeHistory> first = changeHistoryService.findPriceHistory(product.getId(), null, 2);
+        Assertions.assertEquals(List.of("200", "150"), first.content().stream().map(ChangeHistory::getNewValue).toList());
+        Assertions.assertEquals(List.of("150", "100"), first.content().stream().map(ChangeHistory::getOldValue).toList());
+        Assertions.assertTrue(first.hasNext());
+
+        KeysetPage<ChangeHistory> second = changeHistoryService.findPriceHistory(product.getId(), first.nextToken(), 2);
+        Assertions.assertEquals(1, second.content().size());
+        Assertions.assertNull(second.content().get(0).getOldValue());
+        Assertions.assertFalse(second.hasNext());
+    }
+
+    @Test
+    void replayedChangeIsPagedByItsTime() {
+        productPriceService.updatePrice(product.getId(), price -> 150L);
+        productPriceService.updatePrice(product.getId(), price -> 200L);
+        changeHistoryBuffer.flush();
+        // replayed from the spill file, inserted last but changed before the others
+        changeHistoryRepository.save(new ChangeHistory(null, Product.class.getSimpleName(), product.getId(), "price",
+                "90", "100", Instant.now().minus(Duration.ofHours(1))));
+
+        KeysetPage<ChangeHistory> first = changeHistoryService.findPriceHistory(product.getId(), null, 2);
+        Assertions.assertEquals(List.of("200", "150"), first.content().stream().map(ChangeHistory::getNewValue).toList());
+
+        KeysetPage<ChangeHistory> second = changeHistoryService.findPriceHistory(product.getId(), first.nextToken(), 2);
+        Assertions.assertEquals(List.of("100", "100"), second.content().stream().map(ChangeHistory::getNewValue).toList());
+        Assertions.assertEquals("90", second.content().get(1).getOldValue());
+        Assertions.assertFalse(second.hasNext());
+    }
+
+    @Test
+    void atomicAndBulkPriceChangesAreRecorded() {
+        productPriceService.addPrice(product.getId(), 5);
+        productBulkService.repriceByCategory(category.getId(), 10, 100);
+        changeHistoryBuffer.flush();
+
+        List<ChangeHistory> history = changeHistoryService.findPriceHistory(product.getId(), null, 2).content();
+        Assertions.assertEquals(List.of("115", "105"), history.stream().map(ChangeHistory::getNewValue).toList());
+        Assertions.assertEquals(List.of("105", "100"), history.stream().map(ChangeHistory::getOldValue).toList());
+    }
+
+    @Test
+    void categoryRenameIsRecorded() {
+        category.setName("HISTORY RENAMED");
+        categoryRepository.save(category);
+        changeHistoryBuffer.flush();
+
+        ChangeHistory latest = changeHistoryService.findNameHistory(category.getId(), null, 1).content().get(0);
+        Assertions.assertEquals("HISTORY", latest.getOldValue());
+        Assertions.assertEquals("HISTORY RENAMED", latest.getNewValue());
+    }
+
+    @Test
+    void rolledBackChangeLeavesNoHistory() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            Product loaded = productRepository.findById(product.getId()).orElseThrow();
+            loaded.setPrice(999L);
+            productRepository.saveAndFlush(loaded);
+            transactionStatus.setRollbackOnly();
+        });
+        changeHistoryBuffer.flush();
+
+        Assertions.assertEquals(1, changeHistoryService.findPriceHistory(product.getId(), null, 10).content().size());
+    }
+
+    @Test
+    void fullBufferSpillsToFileAndReplays(@TempDir Path directory) {
+        Path spillFile = directory.resolve("spill.jsonl");
+        // never started, so every offer goes to the spill file
+        ChangeHistoryBuffer buffer = new ChangeHistoryBuffer(dataSource, objectMapper, new SimpleMeterRegistry(),
+                1, 10, Duration.ofHours(1), spillFile);
+        buffer.offer(List.of(
+                new ChangeHistory(null, "Product", product.getId(), "price", "100", "300", Instant.now()),
+                new ChangeHistory(null, "Product", product.getId(), "price", "300", "400", Instant.now())));
+        Assertions.assertTrue(Files.exists(spillFile));
+
+        buffer.flush();
+
+        Assertions.assertFalse(Files.exists(spillFile));
+        Assertions.assertFalse(Files.exists(directory.resolve("spill.jsonl.replaying")));
+        Assertions.assertEquals("400", changeHistoryService.findPriceHistory(product.getId(), null, 1).content().get(0).getNewValue());
+    }
+
+    @Test
+    void failedReplayKeepsTheRecordsNotInserted(@TempDir Path directory) throws Exception {
+        Path spillFile = directory.resolve("spill.jsonl");
+        AtomicInteger connectionsLeft = new AtomicInteger(1);
+        DataSource failing = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (connectionsLeft.getAndDecrement() <= 0) {
+                    throw new SQLTransientConnectionException("database down");
+                }
+                return super.getConnection();
+            }
+        };
+        ChangeHistoryBuffer buffer = new ChangeHistoryBuffer(failing, objectMapper, new SimpleMeterRegistry(),
+                1, 2, Duration.ofHours(1), spillFile);
+        buffer.offer(List.of(
+                new ChangeHistory(null, "Product", product.getId(), "price", "100", "300", Instant.now()),
+                new ChangeHistory(null, "Product", product.getId(), "price", "300", "400", Instant.now()),
+                new ChangeHistory(null, "Product", product.getId(), "price", "400", "500", Instant.now())));
+
+        buffer.flush();
+
+        Path replayFile = directory.resolve("spill.jsonl.replaying");
+        Assertions.assertFalse(Files.exists(spillFile));
+        Assertions.assertEquals(1, Files.readAllLines(replayFile).size());
+        Assertions.assertEquals("400", changeHistoryService.findPriceHistory(product.getId(), null, 1).content().get(0).getNewValue());
+
+        connectionsLeft.set(Integer.MAX_VALUE);
+        buffer.flush();
+
+        Assertions.assertFalse(Files.exists(replayFile));
+        Assertions.assertEquals("500", changeHistoryService.findPriceHistory(product.getId(), null, 1).content().get(0).getNewValue());
+    }
+}
@@ -0,0 +1,62 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import programmerzamannow.springdata.jpa.config.ConnectionBulkheadDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+public class ConnectionBulkheadTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void dataSourceIsWrapped() {
+        Assertions.assertInstanceOf(ConnectionBulkheadDataSource.class, dataSource);
+        Assertions.assertNotNull(meterRegistry.find("db.bulkhead.wait").tagKeys("pool").timer());
+        Assertions.assertNotNull(meterRegistry.find("db.bulkhead.available").gauge());
+    }
+
+    @Test
+    void permitIsReleasedOnce() throws Exception {
+        double available = meterRegistry.get("db.bulkhead.available").gauge().value();
+
+        Connection connection = dataSource.getConnection();
+        Assertions.assertEquals(available - 1, meterRegistry.get("db.bulkhead.available").gauge().value());
+
+        connection.close();
+        connection.close();
+        Assertions.assertEquals(available, meterRegistry.get("db.bulkhead.available").gauge().value());
+    }
+
+    @Test
+    void manyVirtualThreadsShareThePool() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        return connection.isValid(1);
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+        }
+    }
+}
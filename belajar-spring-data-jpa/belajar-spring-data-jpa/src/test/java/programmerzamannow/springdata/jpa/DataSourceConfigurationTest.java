@@ -0,0 +1,34 @@
+package programmerzamannow.springdata.jpa;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+@SpringBootTest
+public class DataSourceConfigurationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hikariPropertiesAreBound() throws Exception {
+        HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+
+        Assertions.assertEquals(5, hikariDataSource.getMinimumIdle());
+        Assertions.assertEquals(10, hikariDataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    void poolMetricsArePublished() {
+        Assertions.assertEquals(10, meterRegistry.get("hikaricp.connections.max").gauge().value());
+        Assertions.assertNotNull(meterRegistry.find("hikaricp.connections.pending").gauge());
+    }
+}
@@ -0,0 +1,394 @@
+package programmerzamannow.springdata.jpa;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeded bulk load of categories and products into an embedded H2 database, for tests that need more rows than
+ * the hand-inserted ones. The same {@link Spec} always produces the same rows, only shifted by the ids the
+ * sequences hand out, whatever the number of loading threads.
+ * <p>
+ * Category sizes follow a Zipf distribution, the category of rank {@code k} gets a share proportional to
+ * {@code 1 / k^skew}, so a few categories hold most products and a long tail holds a handful each. Every category
+ * has its own median price, drawn log-uniform between 10.000 and 5.000.000, product prices are log-normal around it
+ * and some products have no price. Names come from small vocabularies like the hand-inserted "GADGET MURAH".
+ * <p>
+ * Rows are written with plain JDBC batches, so the Hibernate listeners do not run: no outbox events, change
+ * history, category stats, price snapshot entries or search index documents are written, refresh whatever the
+ * test reads. Everything goes to the home database, not to shards. The sequences are moved past the loaded ids so
+ * JPA inserts keep working afterwards. The category and price index of product is dropped while products are
+ * loaded and built once at the end, that is faster than updating it row by row, so load before the test runs
+ * queries.
+ */
+public class FixtureGenerator {
+
+    private static final int BLOCK_SIZE = 10_000;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    /**
+     * The index declared on {@code Product}.
+     */
+    private static final String PRODUCT_INDEX = "product_category_price_idx";
+
+    private static final String PRODUCT_INDEX_COLUMNS = "product (category_id, price)";
+
+    private static final List<String> CATEGORY_NOUNS = List.of(
+            "GADGET", "LAPTOP", "HANDPHONE", "TABLET", "KAMERA", "TELEVISI", "KULKAS", "MESIN CUCI", "KIPAS ANGIN",
+            "SEPATU", "SANDAL", "TAS", "BAJU", "CELANA", "JAKET", "KAOS", "JAM TANGAN", "KACAMATA", "TOPI", "BUKU",
+            "MAINAN", "SEPEDA", "HELM", "KOSMETIK", "PARFUM", "OBAT", "VITAMIN", "KOPI", "TEH", "MAKANAN RINGAN",
+            "PERALATAN DAPUR", "PERKAKAS", "FURNITUR", "LAMPU", "ALAT TULIS", "ALAT OLAHRAGA", "AKSESORIS MOBIL",
+            "AKSESORIS MOTOR", "PERLENGKAPAN BAYI", "MAKANAN HEWAN");
+
+    private static final List<String> CATEGORY_ADJECTIVES = List.of(
+            "MURAH", "MAHAL", "BARU", "BEKAS", "IMPOR", "LOKAL", "PREMIUM", "ORIGINAL", "DISKON", "GROSIR");
+
+    private static final List<String> BRANDS = List.of(
+            "Samsung", "Xiaomi", "Asus", "Lenovo", "Acer", "Oppo", "Vivo", "Polytron", "Sharp", "Miyako", "Cosmos",
+            "Nike", "Adidas", "Eiger", "Bata", "Converse", "Uniqlo", "Erigo", "Casio", "Wardah", "Emina", "Indomie",
+            "Kapal Api", "Sariwangi", "Pigeon", "Informa", "Krisbow", "Polygon", "Honda", "Yamaha");
+
+    private static final List<String> VARIANTS = List.of(
+            "Lite", "Pro", "Max", "Plus", "Mini", "Ultra", "Sport", "Classic", "Neo", "Prime", "Air", "Go");
+
+    /**
+     * @param seed           the only source of randomness
+     * @param categories     number of categories, at most a few million since sizes are kept in memory
+     * @param products       number of products
+     * @param categorySkew   Zipf exponent of the category sizes, 0 spreads products evenly
+     * @param noPriceRatio   share of products without price
+     */
+    public record Spec(long seed, int categories, long products, double categorySkew, double noPriceRatio) {
+
+        public Spec {
+            if (categories < 1 || products < 0 || categorySkew < 0 || noPriceRatio < 0 || noPriceRatio > 1) {
+                throw new IllegalArgumentException("Invalid fixture " + seed + ", " + categories + ", " + products
+                        + ", " + categorySkew + ", " + noPriceRatio);
+            }
+        }
+
+        public static Spec of(long seed, int categories, long products) {
+            return new Spec(seed, categories, products, 1.1, 0.02);
+        }
+    }
+
+    /**
+     * What was loaded. Categories are listed by rank, the most popular first, the category of rank {@code k} has
+     * id {@code firstCategoryId + k} and products have the ids {@code firstProductId} to {@code lastProductId}.
+     */
+    public record Fixture(Spec spec, long firstCategoryId, List<String> categoryNames, long[] categorySizes,
+                          long firstProductId, long lastProductId, Duration took, double[] cumulativeWeights) {
+
+        public long categoryId(int rank) {
+            return firstCategoryId + rank;
+        }
+
+        /**
+         * A category drawn with the same skew as the product sizes, for traffic that hits popular categories more.
+         */
+        public int pickCategory(SplittableRandom random) {
+            return sample(cumulativeWeights, random);
+        }
+
+        /**
+         * Any product, uniformly.
+         */
+        public long pickProductId(SplittableRandom random) {
+            return random.nextLong(firstProductId, lastProductId + 1);
+        }
+
+        public long rowsPerSecond() {
+            return (long) ((spec.categories() + spec.products()) / Math.max(took.toNanos() / 1e9, 1e-9));
+        }
+    }
+
+    private final DataSource dataSource;
+
+    private final int threads;
+
+    public FixtureGenerator(DataSource dataSource) {
+        this(dataSource, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public FixtureGenerator(DataSource dataSource, int threads) {
+        this.dataSource = dataSource;
+        this.threads = threads;
+    }
+
+    public Fixture load(Spec spec) {
+        long start = System.nanoTime();
+        try {
+            checkEmbedded();
+            long firstCategoryId = reserve("category_seq", "categories", spec.categories());
+            long firstProductId = reserve("product_seq", "product", spec.products());
+
+            List<String> names = categoryNames(spec);
+            double[] cumulativeWeights = cumulativeWeights(spec.categories(), spec.categorySkew());
+            long[] medianPrices = medianPrices(spec);
+            insertCategories(firstCategoryId, names);
+            long[] sizes;
+            execute("DROP INDEX IF EXISTS " + PRODUCT_INDEX);
+            try {
+                sizes = insertProducts(spec, firstProductId, firstCategoryId, names, cumulativeWeights, medianPrices);
+            } finally {
+                execute("CREATE INDEX IF NOT EXISTS " + PRODUCT_INDEX + " ON " + PRODUCT_INDEX_COLUMNS);
+            }
+
+            return new Fixture(spec, firstCategoryId, names, sizes, firstProductId, firstProductId + spec.products() - 1,
+                    Duration.ofNanos(System.nanoTime() - start), cumulativeWeights);
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Could not load fixture " + spec, exception);
+        }
+    }
+
+    /**
+     * Delete the rows of {@code fixture}, and everything JPA wrote into its categories since.
+     */
+    public void unload(Fixture fixture) {
+        long lastCategoryId = fixture.categoryId(fixture.spec().categories() - 1);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.executeUpdate("DELETE FROM product WHERE category_id BETWEEN " + fixture.firstCategoryId()
+                    + " AND " + lastCategoryId);
+            statement.executeUpdate("DELETE FROM categories WHERE id BETWEEN " + fixture.firstCategoryId()
+                    + " AND " + lastCategoryId);
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Could not unload fixture " + fixture.spec(), exception);
+        }
+    }
+
+    private void checkEmbedded() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String database = connection.getMetaData().getDatabaseProductName();
+            if (!"H2".equals(database)) {
+                throw new IllegalStateException("Fixtures are loaded into an embedded H2 database, not " + database);
+            }
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Take {@code count} ids from the sequence and move it past them. The value read reserves its own pooled
+     * block, ids already handed out by Hibernate are below it.
+     */
+    private long reserve(String sequence, String table, long count) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            long next = queryLong(statement, "SELECT NEXT VALUE FOR " + sequence);
+            long maxId = queryLong(statement, "SELECT COALESCE(MAX(id), 0) FROM " + table);
+            long first = Math.max(next, maxId) + 1;
+            statement.executeUpdate("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + count + SEQUENCE_INCREMENT));
+            return first;
+        }
+    }
+
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void insertCategories(long firstCategoryId, List<String> names) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO categories (id, name, created_date, last_modified_date) VALUES (?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int rank = 0; rank < names.size(); rank++) {
+                insert.setLong(1, firstCategoryId + rank);
+                insert.setString(2, names.get(rank));
+                insert.setTimestamp(3, now);
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+                if ((rank + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Products are generated in blocks of {@link #BLOCK_SIZE}, every block with its own random stream derived from
+     * the seed and the block number, so the threads can take blocks in any order.
+     */
+    private long[] insertProducts(Spec spec, long firstProductId, long firstCategoryId, List<String> names,
+                                  double[] cumulativeWeights, long[] medianPrices) throws SQLException {
+        String[] nouns = productNouns(names);
+        long blocks = (spec.products() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        AtomicLong nextBlock = new AtomicLong();
+        List<long[]> sizesPerThread = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int thread = 0; thread < threads; thread++) {
+                long[] sizes = new long[spec.categories()];
+                sizesPerThread.add(sizes);
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection();
+                         PreparedStatement insert = connection.prepareStatement(
+                                 "INSERT INTO product (id, name, price, version, category_id) VALUES (?, ?, ?, 0, ?)")) {
+                        connection.setAutoCommit(false);
+                        for (long block = nextBlock.getAndIncrement(); block < blocks; block = nextBlock.getAndIncrement()) {
+                            SplittableRandom random = new SplittableRandom(mix(spec.seed(), block));
+                            long from = block * BLOCK_SIZE;
+                            long to = Math.min(from + BLOCK_SIZE, spec.products());
+                            for (long index = from; index < to; index++) {
+                                int rank = sample(cumulativeWeights, random);
+                                sizes[rank]++;
+                                insert.setLong(1, firstProductId + index);
+                                insert.setString(2, productName(nouns[rank], random));
+                                if (random.nextDouble() < spec.noPriceRatio()) {
+                                    insert.setNull(3, Types.BIGINT);
+                                } else {
+                                    insert.setLong(3, price(medianPrices[rank], random));
+                                }
+                                insert.setLong(4, firstCategoryId + rank);
+                                insert.addBatch();
+                                if ((index - from + 1) % BATCH_SIZE == 0) {
+                                    insert.executeBatch();
+                                }
+                            }
+                            insert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading products", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException("Could not load products", exception.getCause());
+        }
+
+        long[] sizes = new long[spec.categories()];
+        for (long[] threadSizes : sizesPerThread) {
+            Arrays.setAll(sizes, rank -> sizes[rank] + threadSizes[rank]);
+        }
+        return sizes;
+    }
+
+    /**
+     * Unique upper case names, every noun with every adjective in a seeded order, then again with a number.
+     */
+    private static List<String> categoryNames(Spec spec) {
+        List<String> combinations = new ArrayList<>();
+        for (String noun : CATEGORY_NOUNS) {
+            for (String adjective : CATEGORY_ADJECTIVES) {
+                combinations.add(noun + " " + adjective);
+            }
+        }
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        for (int i = combinations.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            combinations.set(j, combinations.set(i, combinations.get(j)));
+        }
+
+        List<String> names = new ArrayList<>(spec.categories());
+        for (int rank = 0; rank < spec.categories(); rank++) {
+            String name = combinations.get(rank % combinations.size());
+            int round = rank / combinations.size();
+            names.add(round == 0 ? name : name + " " + (round + 1));
+        }
+        return names;
+    }
+
+    private static long[] medianPrices(Spec spec) {
+        SplittableRandom random = new SplittableRandom(mix(spec.seed(), -1));
+        double min = Math.log(10_000);
+        double max = Math.log(5_000_000);
+        long[] prices = new long[spec.categories()];
+        Arrays.setAll(prices, rank -> (long) Math.exp(min + random.nextDouble() * (max - min)));
+        return prices;
+    }
+
+    /**
+     * Log-normal around the median of the category, rounded to 100 like real price tags.
+     */
+    private static long price(long median, SplittableRandom random) {
+        long price = Math.round(median * Math.exp(0.6 * random.nextGaussian()) / 100) * 100;
+        return Math.max(100, price);
+    }
+
+    /**
+     * Title case noun of every category, "Mesin cuci" for "MESIN CUCI MURAH 2".
+     */
+    private static String[] productNouns(List<String> names) {
+        String[] nouns = new String[names.size()];
+        Arrays.setAll(nouns, rank -> CATEGORY_NOUNS.stream()
+                .filter(noun -> names.get(rank).startsWith(noun + " "))
+                .map(noun -> noun.charAt(0) + noun.substring(1).toLowerCase())
+                .findFirst()
+                .orElseThrow());
+        return nouns;
+    }
+
+    /**
+     * Like "Xiaomi Laptop Pro X412".
+     */
+    private static String productName(String noun, SplittableRandom random) {
+        return BRANDS.get(random.nextInt(BRANDS.size())) + " " + noun + " "
+                + VARIANTS.get(random.nextInt(VARIANTS.size())) + " "
+                + (char) ('A' + random.nextInt(26)) + random.nextInt(100, 1000);
+    }
+
+    private static double[] cumulativeWeights(int categories, double skew) {
+        double[] cumulative = new double[categories];
+        double sum = 0;
+        for (int rank = 0; rank < categories; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < categories; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulativeWeights, SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        return Math.min(index >= 0 ? index + 1 : -index - 1, cumulativeWeights.length - 1);
+    }
+
+    private static long mix(long seed, long block) {
+        long hash = (seed ^ (block * 0x9E37_79B9_7F4A_7C15L)) * 0xBF58_476D_1CE4_E5B9L;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,119 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:generator;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///generator;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+public class FixtureGeneratorTest {
+
+    private static final FixtureGenerator.Spec SPEC = FixtureGenerator.Spec.of(7, 50, 25_000);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<FixtureGenerator.Fixture> fixtures = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        fixtures.add(new FixtureGenerator(dataSource, 1).load(SPEC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.forEach(new FixtureGenerator(dataSource)::unload);
+    }
+
+    @Test
+    void sameSeedLoadsSameRowsWhateverTheThreads() {
+        FixtureGenerator.Fixture fixture = new FixtureGenerator(dataSource, 3).load(SPEC);
+        fixtures.add(fixture);
+
+        Assertions.assertEquals(rows(fixtures.get(0)), rows(fixture));
+        Assertions.assertEquals(fixtures.get(0).categoryNames(), fixture.categoryNames());
+        Assertions.assertArrayEquals(fixtures.get(0).categorySizes(), fixture.categorySizes());
+    }
+
+    @Test
+    void categorySizesAreSkewed() {
+        FixtureGenerator.Fixture fixture = fixtures.get(0);
+        long[] sizes = fixture.categorySizes();
+
+        Assertions.assertEquals(SPEC.products(), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product WHERE id BETWEEN ? AND ?", Long.class,
+                fixture.firstProductId(), fixture.lastProductId()));
+        Assertions.assertTrue(sizes[0] > 20 * sizes[SPEC.categories() - 1], () -> sizes[0] + " vs " + sizes[SPEC.categories() - 1]);
+        Assertions.assertEquals(sizes[0], productRepository.countByCategory_name(fixture.categoryNames().get(0)));
+        Assertions.assertEquals(50, fixture.categoryNames().stream().distinct().count());
+
+        long withoutPrice = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product WHERE price IS NULL AND id BETWEEN ? AND ?", Long.class,
+                fixture.firstProductId(), fixture.lastProductId());
+        Assertions.assertTrue(withoutPrice > 0 && withoutPrice < SPEC.products() / 10, () -> String.valueOf(withoutPrice));
+    }
+
+    @Test
+    void jpaInsertsContinueAfterTheFixture() {
+        FixtureGenerator.Fixture fixture = fixtures.get(0);
+
+        Category category = new Category();
+        category.setName("AFTER FIXTURE");
+        categoryRepository.save(category);
+        Product product = new Product();
+        product.setName("After Fixture Product");
+        product.setPrice(100L);
+        product.setCategory(categoryRepository.findById(fixture.categoryId(0)).orElseThrow());
+        productRepository.save(product);
+
+        Assertions.assertTrue(category.getId() > fixture.categoryId(SPEC.categories() - 1));
+        Assertions.assertTrue(product.getId() > fixture.lastProductId());
+        categoryRepository.delete(category);
+    }
+
+    /**
+     * Rows relative to the first ids of the fixture.
+     */
+    private List<List<Object>> rows(FixtureGenerator.Fixture fixture) {
+        return jdbcTemplate.query("SELECT id, name, price, category_id FROM product WHERE id BETWEEN ? AND ? ORDER BY id",
+                (resultSet, rowNum) -> {
+                    List<Object> row = new ArrayList<>();
+                    row.add(resultSet.getLong("id") - fixture.firstProductId());
+                    row.add(resultSet.getString("name"));
+                    row.add(resultSet.getObject("price"));
+                    row.add(resultSet.getLong("category_id") - fixture.firstCategoryId());
+                    return row;
+                },
+                fixture.firstProductId(), fixture.lastProductId());
+    }
+}
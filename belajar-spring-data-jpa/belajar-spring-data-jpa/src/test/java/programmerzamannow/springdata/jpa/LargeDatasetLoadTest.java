@@ -0,0 +1,140 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.PriceSnapshotService;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Repository and web reads against a generated catalog, see {@link FixtureGenerator}. Popular categories get more
+ * traffic, ids are drawn uniformly. Run with {@code mvn test -Dtest=LargeDatasetLoadTest -Dbenchmark=true}, the
+ * size of the catalog with {@code -Dfixture.seed}, {@code -Dfixture.categories}, {@code -Dfixture.products} and
+ * {@code -Dfixture.skew}, the load with the properties of {@link LoadDriver#fromSystemProperties}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:fixture;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///fixture;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class LargeDatasetLoadTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PriceSnapshotService priceSnapshotService;
+
+    private final LoadDriver loadDriver = LoadDriver.fromSystemProperties(16, 5, 50);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private FixtureGenerator.Fixture fixture;
+
+    @BeforeAll
+    void setUp() {
+        FixtureGenerator.Spec spec = new FixtureGenerator.Spec(
+                Long.getLong("fixture.seed", 42),
+                Integer.getInteger("fixture.categories", 1_000),
+                Long.getLong("fixture.products", 1_000_000),
+                Double.parseDouble(System.getProperty("fixture.skew", "1.1")),
+                0.02);
+        fixture = new FixtureGenerator(dataSource).load(spec);
+        System.out.printf("loaded %s in %d ms, %d rows/s, largest category %d products, smallest %d%n",
+                spec, fixture.took().toMillis(), fixture.rowsPerSecond(),
+                fixture.categorySizes()[0], fixture.categorySizes()[spec.categories() - 1]);
+
+        priceSnapshotService.refresh();
+    }
+
+    @AfterAll
+    void tearDown() {
+        new FixtureGenerator(dataSource).unload(fixture);
+    }
+
+    @Test
+    void repositoryFindById() throws Exception {
+        report(loadDriver.run("repository findById", (client, random) ->
+                Assertions.assertTrue(productRepository.findById(fixture.pickProductId(random)).isPresent())));
+    }
+
+    @Test
+    void repositoryFirstPageOfCategory() throws Exception {
+        PageRequest pageRequest = PageRequest.of(0, PAGE_SIZE, Sort.by("id"));
+        report(loadDriver.run("repository first page of category", (client, random) -> {
+            String name = fixture.categoryNames().get(fixture.pickCategory(random));
+            Assertions.assertFalse(productRepository.findAllSummaryByCategoryName(name, pageRequest).isEmpty());
+        }));
+    }
+
+    @Test
+    void repositoryCountByCategory() throws Exception {
+        report(loadDriver.run("repository count by category", (client, random) -> {
+            int rank = fixture.pickCategory(random);
+            Assertions.assertEquals(fixture.categorySizes()[rank],
+                    productRepository.countByCategory_name(fixture.categoryNames().get(rank)));
+        }));
+    }
+
+    @Test
+    void webPrice() throws Exception {
+        report(loadDriver.run("GET /api/products/{id}/price", (client, random) ->
+                get("/api/products/" + fixture.pickProductId(random) + "/price")));
+    }
+
+    @Test
+    void webReactiveSearch() throws Exception {
+        report(loadDriver.run("GET /api/reactive/products", (client, random) -> {
+            String name = fixture.categoryNames().get(fixture.pickCategory(random));
+            get("/api/reactive/products?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8)
+                    + "&afterId=" + fixture.pickProductId(random) + "&limit=" + PAGE_SIZE);
+        }));
+    }
+
+    private void get(String path) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+    }
+
+    private void report(LoadDriver.Report report) {
+        System.out.println(report);
+        Assertions.assertEquals(0, report.errors(), () -> String.valueOf(report.firstError()));
+    }
+}
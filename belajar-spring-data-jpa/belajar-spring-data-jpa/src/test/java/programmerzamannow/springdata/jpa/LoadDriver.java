@@ -0,0 +1,140 @@
+package programmerzamannow.springdata.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one operation from many concurrent clients, each on its own virtual thread, and measures every call. Each
+ * client first makes its warm-up calls, the clock starts once all of them are done. A failed call is counted and
+ * left out of the latencies, the first failure is kept for the report. Failed assertions count as failed calls.
+ */
+public class LoadDriver {
+
+    /**
+     * One call of a client, {@code random} is seeded per client so a run can be repeated.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        void call(int client, SplittableRandom random) throws Exception;
+    }
+
+    public record Report(String name, int clients, long calls, long errors, double seconds,
+                         long p50Nanos, long p99Nanos, long maxNanos, Throwable firstError) {
+
+        public double callsPerSecond() {
+            return calls / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d clients, %.0f calls/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d errors",
+                    name, clients, callsPerSecond(), p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6, errors);
+        }
+    }
+
+    private final int clients;
+
+    private final int warmUpCalls;
+
+    private final int callsPerClient;
+
+    private final long seed;
+
+    public LoadDriver(int clients, int warmUpCalls, int callsPerClient, long seed) {
+        this.clients = clients;
+        this.warmUpCalls = warmUpCalls;
+        this.callsPerClient = callsPerClient;
+        this.seed = seed;
+    }
+
+    /**
+     * {@code load.clients}, {@code load.warm-up}, {@code load.calls} and {@code load.seed} system properties, or
+     * the given defaults.
+     */
+    public static LoadDriver fromSystemProperties(int clients, int warmUpCalls, int callsPerClient) {
+        return new LoadDriver(Integer.getInteger("load.clients", clients),
+                Integer.getInteger("load.warm-up", warmUpCalls),
+                Integer.getInteger("load.calls", callsPerClient),
+                Long.getLong("load.seed", 42));
+    }
+
+    public Report run(String name, Operation operation) throws InterruptedException {
+        long[][] latencies = new long[clients][callsPerClient];
+        int[] measured = new int[clients];
+        AtomicLong errors = new AtomicLong();
+        Throwable[] firstError = new Throwable[1];
+
+        long start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> warmUps = new ArrayList<>();
+            SplittableRandom[] randoms = new SplittableRandom[clients];
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                randoms[client] = new SplittableRandom(seed + client);
+                warmUps.add(executor.submit(() -> {
+                    for (int j = 0; j < warmUpCalls; j++) {
+                        try {
+                            operation.call(client, randoms[client]);
+                        } catch (Exception | AssertionError ignored) {
+                            // failures while warming up are seen again in the measured calls
+                        }
+                    }
+                }));
+            }
+            await(warmUps);
+
+            start = System.nanoTime();
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                calls.add(executor.submit(() -> {
+                    for (int j = 0; j < callsPerClient; j++) {
+                        long callStart = System.nanoTime();
+                        try {
+                            operation.call(client, randoms[client]);
+                            latencies[client][measured[client]++] = System.nanoTime() - callStart;
+                        } catch (Exception | AssertionError exception) {
+                            if (errors.getAndIncrement() == 0) {
+                                firstError[0] = exception;
+                            }
+                        }
+                    }
+                }));
+            }
+            await(calls);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[Arrays.stream(measured).sum()];
+        int position = 0;
+        for (int client = 0; client < clients; client++) {
+            System.arraycopy(latencies[client], 0, all, position, measured[client]);
+            position += measured[client];
+        }
+        Arrays.sort(all);
+        return new Report(name, clients, all.length, errors.get(), seconds,
+                percentile(all, 0.5), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1], firstError[0]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)];
+    }
+
+    private static void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException exception) {
+                throw new IllegalStateException("Load client failed", exception.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.OutboxEvent;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.OutboxEventRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.OutboxRelay;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@Import(OutboxTest.Config.class)
+public class OutboxTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private Queue<OutboxEvent> received;
+
+    @Test
+    void changesAreRelayedInOrder() throws InterruptedException {
+        Category category = new Category();
+        category.setName("OUTBOX");
+        categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Outbox Product");
+        product.setPrice(100L);
+        product.setCategory(category);
+        productRepository.save(product);
+
+        productPriceService.updatePrice(product.getId(), price -> 150L);
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+
+        List<OutboxEvent> events = awaitEvents(Product.class.getSimpleName(), product.getId(), 3);
+        Assertions.assertEquals(List.of(OutboxEvent.Type.CREATED, OutboxEvent.Type.UPDATED, OutboxEvent.Type.DELETED),
+                events.stream().map(OutboxEvent::getEventType).toList());
+        Assertions.assertTrue(events.get(1).getPayload().contains("\"price\":150"));
+        Assertions.assertTrue(events.get(1).getPayload().contains("\"categoryId\":" + category.getId()));
+        Assertions.assertEquals(List.of(OutboxEvent.Type.CREATED, OutboxEvent.Type.DELETED),
+                awaitEvents(Category.class.getSimpleName(), category.getId(), 2).stream().map(OutboxEvent::getEventType).toList());
+    }
+
+    @Test
+    void rolledBackChangesLeaveNoEvents() {
+        Long categoryId = transactionOperations.execute(transactionStatus -> {
+            Category category = new Category();
+            category.setName("OUTBOX ROLLBACK");
+            categoryRepository.saveAndFlush(category);
+            transactionStatus.setRollbackOnly();
+            return category.getId();
+        });
+
+        outboxRelay.relay();
+
+        Assertions.assertTrue(outboxEventRepository.findAll().stream().noneMatch(event -> event.getAggregateId().equals(categoryId)));
+        Assertions.assertTrue(received.stream().noneMatch(event -> event.getAggregateId().equals(categoryId)));
+    }
+
+    @Test
+    void bulkChangesToMissingProductsLeaveNoEvents() {
+        Long missingId = (1L << 48) - 1;
+
+        Assertions.assertEquals(0, productBulkService.repriceByIds(List.of(missingId), 10, 100));
+        Assertions.assertEquals(0, productBulkService.deleteByIds(List.of(missingId), 100));
+        outboxRelay.relay();
+
+        Assertions.assertTrue(outboxEventRepository.findAll().stream().noneMatch(event -> event.getAggregateId().equals(missingId)));
+        Assertions.assertTrue(received.stream().noneMatch(event -> event.getAggregateId().equals(missingId)));
+    }
+
+    @Test
+    void lockedEventsAreSkipped() throws Exception {
+        Category category = new Category();
+        category.setName("OUTBOX LOCKED");
+        categoryRepository.save(category);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Long>> otherNode = CompletableFuture.supplyAsync(() -> transactionOperations.execute(transactionStatus -> {
+            List<Long> ids = outboxEventRepository.findAllByOrderByIdAsc(Limit.of(1000)).stream().map(OutboxEvent::getId).toList();
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return ids;
+        }));
+        try {
+            Assertions.assertTrue(locked.await(10, TimeUnit.SECONDS));
+            received.clear();
+            CompletableFuture.runAsync(outboxRelay::relay).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+
+        List<Long> lockedIds = otherNode.get(10, TimeUnit.SECONDS);
+        Assertions.assertTrue(received.stream().noneMatch(event -> lockedIds.contains(event.getId())));
+        categoryRepository.delete(category);
+    }
+
+    private List<OutboxEvent> awaitEvents(String aggregateType, Long aggregateId, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            outboxRelay.relay();
+            List<OutboxEvent> events = received.stream()
+                    .filter(event -> event.getAggregateType().equals(aggregateType) && event.getAggregateId().equals(aggregateId))
+                    .toList();
+            if (events.size() >= count) {
+                return events;
+            }
+            Thread.sleep(100);
+        }
+        return Assertions.fail("Expected " + count + " events for " + aggregateType + " " + aggregateId);
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        private final Queue<OutboxEvent> received = new ConcurrentLinkedQueue<>();
+
+        @Bean
+        public Queue<OutboxEvent> receivedOutboxEvents() {
+            return received;
+        }
+
+        @EventListener
+        public void onOutboxEvent(OutboxEvent event) {
+            received.add(event);
+        }
+    }
+}
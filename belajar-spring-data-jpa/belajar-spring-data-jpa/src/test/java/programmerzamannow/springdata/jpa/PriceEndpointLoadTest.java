@@ -0,0 +1,95 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hammers {@code GET /api/products/{id}/price} with many concurrent clients. Compare the two thread modes with
+ * {@code mvn test -Dtest=PriceEndpointLoadTest -Dbenchmark=true -Dspring.threads.virtual.enabled=true|false}.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PriceEndpointLoadTest {
+
+    private static final int CLIENTS = 500;
+
+    private static final int REQUESTS_PER_CLIENT = 40;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Category category;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("LOAD TEST");
+        categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Load Test Product");
+        product.setPrice(25_000L);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(product.getId());
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void price() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products/" + product.getId() + "/price")).build();
+
+        LoadDriver.Report report = new LoadDriver(CLIENTS, 0, REQUESTS_PER_CLIENT, 42).run(
+                (virtualThreads ? "virtual" : "platform") + " threads", (client, random) -> {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    Assertions.assertEquals(200, response.statusCode());
+                });
+
+        Timer bulkheadWait = meterRegistry.get("db.bulkhead.wait").timer();
+        log.info("{}, bulkhead wait mean {} ms max {} ms", report,
+                String.format("%.2f", bulkheadWait.mean(TimeUnit.MILLISECONDS)),
+                String.format("%.2f", bulkheadWait.max(TimeUnit.MILLISECONDS)));
+        Assertions.assertEquals(0, report.errors(), () -> String.valueOf(report.firstError()));
+    }
+}
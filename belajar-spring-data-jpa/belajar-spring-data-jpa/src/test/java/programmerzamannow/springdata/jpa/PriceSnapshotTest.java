@@ -0,0 +1,180 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.price.PriceSnapshot;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.PriceSnapshotService;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@SpringBootTest
+public class PriceSnapshotTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private PriceSnapshot priceSnapshot;
+
+    @Autowired
+    private PriceSnapshotService priceSnapshotService;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Category category;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("SNAPSHOT");
+        categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Snapshot Product");
+        product.setPrice(100L);
+        product.setCategory(category);
+        productRepository.save(product);
+
+        priceSnapshotService.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void refreshLoadsEveryPrice() {
+        Product withoutPrice = new Product();
+        withoutPrice.setName("Snapshot Product Without Price");
+        withoutPrice.setCategory(category);
+        productRepository.save(withoutPrice);
+        priceSnapshotService.refresh();
+
+        Assertions.assertEquals(100L, priceSnapshot.price(product.getId()));
+        Assertions.assertEquals(PriceSnapshot.NO_PRICE, priceSnapshot.price(withoutPrice.getId()));
+        Assertions.assertEquals(PriceSnapshot.MISSING, priceSnapshot.price(-1));
+        Assertions.assertEquals(Optional.of(new ProductPrice(withoutPrice.getId(), null)),
+                priceSnapshotService.findPrice(withoutPrice.getId()));
+    }
+
+    @Test
+    void committedChangesAreAppliedAndRolledBackOnesAreNot() {
+        productPriceService.updatePrice(product.getId(), price -> 150L);
+        Assertions.assertEquals(150L, priceSnapshot.price(product.getId()));
+
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            Product loaded = productRepository.findById(product.getId()).orElseThrow();
+            loaded.setPrice(999L);
+            productRepository.saveAndFlush(loaded);
+            transactionStatus.setRollbackOnly();
+        });
+        Assertions.assertEquals(150L, priceSnapshot.price(product.getId()));
+
+        Product inserted = new Product();
+        inserted.setName("Snapshot Product Inserted");
+        inserted.setPrice(300L);
+        inserted.setCategory(category);
+        productRepository.save(inserted);
+        Assertions.assertEquals(300L, priceSnapshot.price(inserted.getId()));
+    }
+
+    @Test
+    void bulkChangesFallBackToTheRepository() {
+        productBulkService.repriceByIds(List.of(product.getId()), 50, 100);
+
+        Assertions.assertEquals(PriceSnapshot.MISSING, priceSnapshot.price(product.getId()));
+        Assertions.assertEquals(Optional.of(new ProductPrice(product.getId(), 150L)), priceSnapshotService.findPrice(product.getId()));
+
+        priceSnapshotService.refresh();
+        Assertions.assertEquals(150L, priceSnapshot.price(product.getId()));
+
+        productBulkService.deleteByIds(List.of(product.getId()), 100);
+        Assertions.assertEquals(Optional.empty(), priceSnapshotService.findPrice(product.getId()));
+    }
+
+    @Test
+    void changesOfOtherNodesAreCaughtUp() {
+        // a statement of its own passes none of the listeners, like a write on another node
+        transactionOperations.executeWithoutResult(transactionStatus -> entityManager.createQuery(
+                        "UPDATE Product p SET p.price = 777, p.version = p.version + 1, p.modifiedAt = :now WHERE p.id = :id")
+                .setParameter("now", Instant.now())
+                .setParameter("id", product.getId())
+                .executeUpdate());
+        Assertions.assertEquals(100L, priceSnapshot.price(product.getId()));
+
+        priceSnapshotService.catchUp();
+        Assertions.assertEquals(777L, priceSnapshot.price(product.getId()));
+    }
+
+    @Test
+    void olderVersionDoesNotOverwriteNewerOne() {
+        priceSnapshot.put(product.getId(), 500L, 10);
+        priceSnapshot.put(product.getId(), 400L, 9);
+
+        Assertions.assertEquals(500L, priceSnapshot.price(product.getId()));
+    }
+
+    @Test
+    void mappedSnapshotSurvivesRestartAndGrows(@TempDir Path directory) {
+        Path file = directory.resolve("price-snapshot.bin");
+        PriceSnapshot snapshot = new PriceSnapshot(new SimpleMeterRegistry(), PriceSnapshot.Storage.MAPPED, file);
+        snapshot.refresh(loader -> {
+            for (long id = 1; id <= 3_000; id++) {
+                loader.put(id, id * 10, 0);
+            }
+        });
+        snapshot.put(3_001, 7L, 0);
+        snapshot.close();
+
+        PriceSnapshot restarted = new PriceSnapshot(new SimpleMeterRegistry(), PriceSnapshot.Storage.MAPPED, file);
+        Assertions.assertEquals(3_001, restarted.size());
+        Assertions.assertEquals(12_340L, restarted.price(1_234));
+        Assertions.assertEquals(7L, restarted.price(3_001));
+        Assertions.assertEquals(PriceSnapshot.MISSING, restarted.price(3_002));
+
+        List<Instant> since = new ArrayList<>();
+        restarted.catchUp(Duration.ofSeconds(30), (instant, loader) -> {
+            since.add(instant);
+            loader.put(1_234, 5L, 1);
+        });
+        Assertions.assertEquals(1, since.size());
+        Assertions.assertTrue(since.get(0).isBefore(Instant.now().minusSeconds(29)));
+        Assertions.assertEquals(5L, restarted.price(1_234));
+    }
+}
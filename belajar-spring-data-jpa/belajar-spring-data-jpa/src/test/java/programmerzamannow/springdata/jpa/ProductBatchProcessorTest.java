@@ -0,0 +1,130 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import programmerzamannow.springdata.jpa.entity.BatchJob;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.BatchJobReport;
+import programmerzamannow.springdata.jpa.repository.BatchJobRepository;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBatchProcessor;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@SpringBootTest
+public class ProductBatchProcessorTest {
+
+    @Autowired
+    private ProductBatchProcessor productBatchProcessor;
+
+    @Autowired
+    private BatchJobRepository batchJobRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    private final String jobName = "test-" + UUID.randomUUID();
+
+    private Category category;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("BATCH");
+        categoryRepository.save(category);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Product product = new Product();
+            product.setName("Batch " + i);
+            product.setPrice(100L);
+            product.setCategory(category);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBatchProcessor.reset(jobName);
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void everyProductIsProcessedOnce() {
+        Map<Long, Integer> seen = new ConcurrentHashMap<>();
+        BatchJobReport report = productBatchProcessor.run(jobName, 4,
+                chunk -> chunk.forEach(product -> seen.merge(product.getId(), 1, Integer::sum)));
+
+        products.forEach(product -> Assertions.assertEquals(1, seen.get(product.getId())));
+        Assertions.assertEquals(report.totalChunks(), report.processedChunks());
+        Assertions.assertEquals(BatchJob.Status.COMPLETED, batchJobRepository.findById(jobName).orElseThrow().getStatus());
+
+        BatchJobReport again = productBatchProcessor.run(jobName, 4, chunk -> Assertions.fail("job already completed"));
+        Assertions.assertEquals(0, again.processedChunks());
+    }
+
+    @Test
+    void failedJobResumesFromCommittedChunks() {
+        Long failingId = products.get(20).getId();
+        Assertions.assertThrows(IllegalStateException.class, () -> productBatchProcessor.run(jobName, 4, chunk -> {
+            addOneToBatchProducts(chunk);
+            if (chunk.stream().anyMatch(product -> product.getId().equals(failingId))) {
+                throw new IllegalStateException("chunk with product " + failingId + " fails");
+            }
+        }));
+        Assertions.assertEquals(BatchJob.Status.FAILED, batchJobRepository.findById(jobName).orElseThrow().getStatus());
+        Assertions.assertEquals(100L, productRepository.findById(failingId).orElseThrow().getPrice());
+
+        BatchJobReport report = productBatchProcessor.run(jobName, 4, this::addOneToBatchProducts);
+
+        Assertions.assertTrue(report.skippedChunks() > 0);
+        Assertions.assertEquals(report.totalChunks(), report.processedChunks() + report.skippedChunks());
+        products.forEach(product ->
+                Assertions.assertEquals(101L, productRepository.findById(product.getId()).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void runningJobIsNotStartedTwice() {
+        batchJobRepository.save(new BatchJob(jobName, products.get(0).getId(), products.get(29).getId(), 4,
+                BatchJob.Status.RUNNING, Instant.now(), null));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> productBatchProcessor.run(jobName, 4, chunk -> Assertions.fail("job is running elsewhere")));
+
+        BatchJob crashed = batchJobRepository.findById(jobName).orElseThrow();
+        crashed.setStartedAt(Instant.now().minus(Duration.ofHours(1)));
+        batchJobRepository.save(crashed);
+
+        BatchJobReport report = productBatchProcessor.run(jobName, 4, this::addOneToBatchProducts);
+        Assertions.assertEquals(report.totalChunks(), report.processedChunks());
+        Assertions.assertEquals(BatchJob.Status.COMPLETED, batchJobRepository.findById(jobName).orElseThrow().getStatus());
+    }
+
+    private void addOneToBatchProducts(List<Product> chunk) {
+        chunk.stream()
+                .filter(product -> product.getCategory().getId().equals(category.getId()))
+                .forEach(product -> product.setPrice(product.getPrice() + 1));
+    }
+}
@@ -0,0 +1,105 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+public class ProductBulkServiceTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    private Category category;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("BULK");
+        categoryRepository.save(category);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Product product = new Product();
+            product.setName((i % 2 == 0 ? "Bulkeven " : "Bulkodd ") + i);
+            product.setPrice(1_000L);
+            product.setCategory(category);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void deleteByCategory() {
+        Assertions.assertEquals(25, productBulkService.deleteByCategory(category.getId(), 10));
+        Assertions.assertEquals(0, productRepository.countByCategory_name("BULK"));
+        Assertions.assertEquals(0, productRepository.fullTextSearch("bulkeven", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void deleteByNameLike() {
+        Assertions.assertEquals(13, productBulkService.deleteByNameLike("Bulkeven %", 5));
+        Assertions.assertEquals(12, productRepository.countByCategory_name("BULK"));
+    }
+
+    @Test
+    void deleteByIds() {
+        List<Long> ids = products.subList(0, 7).stream().map(Product::getId).toList();
+
+        Assertions.assertEquals(7, productBulkService.deleteByIds(ids, 3));
+        Assertions.assertEquals(18, productRepository.countByCategory_name("BULK"));
+    }
+
+    @Test
+    void repriceByCategory() {
+        Assertions.assertEquals(25, productBulkService.repriceByCategory(category.getId(), 500, 10));
+
+        Product product = productRepository.findById(products.get(0).getId()).orElseThrow();
+        Assertions.assertEquals(1_500L, product.getPrice());
+        Assertions.assertEquals(1L, product.getVersion());
+    }
+
+    @Test
+    void repriceByNameLikeAndIds() {
+        Assertions.assertEquals(12, productBulkService.repriceByNameLike("Bulkodd %", -100, 5));
+        Assertions.assertEquals(2, productBulkService.repriceByIds(List.of(products.get(1).getId(), products.get(2).getId()), -100, 1));
+
+        Assertions.assertEquals(800L, productRepository.findById(products.get(1).getId()).orElseThrow().getPrice());
+        Assertions.assertEquals(900L, productRepository.findById(products.get(2).getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void deleteCategoryWithProductsEvictsCache() {
+        Long categoryId = category.getId();
+        Assertions.assertTrue(categoryRepository.findById(categoryId).isPresent());
+
+        Assertions.assertEquals(25, productBulkService.deleteCategoryWithProducts(categoryId, 10));
+        Assertions.assertTrue(categoryRepository.findById(categoryId).isEmpty());
+        Assertions.assertTrue(categoryRepository.findFirstByNameEquals("BULK").isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("EXPORT");
+        categoryRepository.save(category);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("Export, \"Product\" " + i);
+            product.setPrice(1_000L * i);
+            product.setCategory(category);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll(productRepository.findAllByCategory_Name("EXPORT"));
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        String[] lines = export("ndjson").split("\n");
+
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertTrue(lines[0].contains("\"name\":\"Export, \\\"Product\\\" 0\""));
+        Assertions.assertTrue(lines[2].contains("\"price\":2000"));
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        String[] lines = export("csv").split("\n");
+
+        Assertions.assertEquals(4, lines.length);
+        Assertions.assertEquals("id,name,price,category_id", lines[0]);
+        Assertions.assertTrue(lines[1].contains(",\"Export, \"\"Product\"\" 0\",0," + category.getId()));
+    }
+
+    @Test
+    void categoryNotFound() throws Exception {
+        mockMvc.perform(get("/api/categories/{id}/products/export", -1L))
+                .andExpect(status().isNotFound());
+    }
+
+    private String export(String format) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/categories/{id}/products/export", category.getId()).param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+}
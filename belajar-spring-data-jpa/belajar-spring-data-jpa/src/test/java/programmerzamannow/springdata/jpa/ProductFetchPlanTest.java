@@ -0,0 +1,116 @@
+package programmerzamannow.springdata.jpa;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.util.List;
+
+@SpringBootTest
+@Import(SqlStatementCounter.Config.class)
+public class ProductFetchPlanTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void findAllWithCategoryByNameLike() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            prepare();
+
+            List<Product> products = productRepository.findAllWithCategoryByNameLike("Fetch Plan %");
+            products.forEach(product -> product.getCategory().getName());
+
+            Assertions.assertEquals(6, products.size());
+            Assertions.assertEquals(1, SqlStatementCounter.count());
+
+            transactionStatus.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void findAllByNameLikeWithoutGraph() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            prepare();
+
+            List<Product> products = productRepository.findAllByNameLike("Fetch Plan %", Product.class);
+            Assertions.assertEquals(1, SqlStatementCounter.count());
+
+            // lazy categories are loaded together in one batch, never one select per category
+            products.forEach(product -> product.getCategory().getName());
+            Assertions.assertEquals(2, SqlStatementCounter.count());
+
+            transactionStatus.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void findAllWithCategoryByCategoryName() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            prepare();
+
+            List<Product> products = productRepository.findAllWithCategoryByCategory_Name("FETCH PLAN 1");
+            products.forEach(product -> product.getCategory().getName());
+
+            Assertions.assertEquals(2, products.size());
+            Assertions.assertEquals(1, SqlStatementCounter.count());
+
+            transactionStatus.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void searchProductWithCategory() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            prepare();
+
+            Page<Product> products = productRepository.searchProductWithCategory("Fetch Plan %", PageRequest.of(0, 10));
+            products.forEach(product -> product.getCategory().getName());
+
+            Assertions.assertEquals(6, products.getContent().size());
+            // page fits in one request, so Spring Data skips the count query
+            Assertions.assertEquals(1, SqlStatementCounter.count());
+
+            transactionStatus.setRollbackOnly();
+        });
+    }
+
+    private void prepare() {
+        for (int i = 0; i < 3; i++) {
+            Category category = new Category();
+            category.setName("FETCH PLAN " + i);
+            categoryRepository.save(category);
+
+            for (int j = 0; j < 2; j++) {
+                Product product = new Product();
+                product.setName("Fetch Plan " + i + "-" + j);
+                product.setPrice(1_000L);
+                product.setCategory(category);
+                productRepository.save(product);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+    }
+}
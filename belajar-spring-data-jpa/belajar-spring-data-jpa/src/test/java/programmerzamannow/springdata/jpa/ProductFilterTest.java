@@ -0,0 +1,144 @@
+package programmerzamannow.springdata.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.ProductFilter;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@SpringBootTest
+public class ProductFilterTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Category> categories;
+
+    @BeforeEach
+    void setUp() {
+        categories = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Category category = new Category();
+            category.setName("FILTER " + i);
+            categories.add(categoryRepository.save(category));
+        }
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product product = new Product();
+            product.setName("Filter Product " + i);
+            product.setPrice(100L * (i + 1));
+            product.setCategory(categories.get(i % 2));
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categories.forEach(category -> productBulkService.deleteCategoryWithProducts(category.getId(), 100));
+    }
+
+    @Test
+    void filterByCategoryAndPriceRange() {
+        ProductFilter filter = ProductFilter.builder()
+                .categoryIds(List.of(categories.get(0).getId()))
+                .minPrice(200L)
+                .maxPrice(700L)
+                .build();
+
+        Page<Product> page = productRepository.findAllByFilter(filter, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        Assertions.assertEquals(3, page.getTotalElements());
+        Assertions.assertEquals(List.of(700L, 500L), page.getContent().stream().map(Product::getPrice).toList());
+        Assertions.assertEquals(3, productRepository.countByFilter(filter));
+    }
+
+    @Test
+    void filterByNameAndCategoryName() {
+        ProductFilter filter = ProductFilter.builder()
+                .nameLike("Filter Product%")
+                .categoryName("FILTER 1")
+                .build();
+
+        Page<Product> page = productRepository.findAllByFilter(filter, PageRequest.of(0, 10));
+
+        Assertions.assertEquals(5, page.getTotalElements());
+        page.getContent().forEach(product -> Assertions.assertTrue(product.getPrice() % 200 == 0));
+    }
+
+    @Test
+    void emptyCategoryListMatchesNothing() {
+        ProductFilter filter = ProductFilter.builder().categoryIds(List.of()).build();
+
+        Assertions.assertTrue(productRepository.findAllByFilter(filter, PageRequest.of(0, 10)).isEmpty());
+        Assertions.assertEquals(0, productRepository.countByFilter(filter));
+    }
+
+    @Test
+    void unknownSortIsRejected() {
+        ProductFilter filter = ProductFilter.builder().build();
+
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> productRepository.findAllByFilter(filter, PageRequest.of(0, 10, Sort.by("category.name"))));
+    }
+
+    @Test
+    void redundantSortsShareOnePlan() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ProductFilter filter = ProductFilter.builder().maxPrice(1_000_000L).build();
+
+        Page<Product> expected = productRepository.findAllByFilter(filter, PageRequest.of(0, 10, Sort.by("price")));
+        long misses = statistics.getQueryPlanCacheMissCount();
+        for (int repeats = 1; repeats <= 20; repeats++) {
+            List<Sort.Order> orders = new ArrayList<>(Collections.nCopies(repeats, Sort.Order.asc("price")));
+            orders.add(Sort.Order.asc("id"));
+            orders.add(Sort.Order.desc("name"));
+            Page<Product> page = productRepository.findAllByFilter(filter, PageRequest.of(0, 10, Sort.by(orders)));
+            Assertions.assertEquals(expected.getContent(), page.getContent());
+        }
+
+        Assertions.assertEquals(0, statistics.getQueryPlanCacheMissCount() - misses);
+    }
+
+    @Test
+    void differentInListSizesShareOnePlan() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> ids = categories.stream().map(Category::getId).toList();
+
+        long misses = statistics.getQueryPlanCacheMissCount();
+        for (int size = 1; size <= 2; size++) {
+            productRepository.countByFilter(ProductFilter.builder().categoryIds(ids.subList(0, size)).minPrice(0L).build());
+            productRepository.countByFilter(ProductFilter.builder().categoryIds(ids.subList(0, size)).minPrice(0L).build());
+        }
+
+        Assertions.assertTrue(statistics.getQueryPlanCacheMissCount() - misses <= 1);
+    }
+}
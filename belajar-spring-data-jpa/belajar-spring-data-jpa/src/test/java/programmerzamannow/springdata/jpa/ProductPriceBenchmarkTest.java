@@ -0,0 +1,102 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent price updates on one hot product: pessimistic lock vs optimistic retry vs atomic UPDATE.
+ * Run with {@code mvn test -Dtest=ProductPriceBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ProductPriceBenchmarkTest {
+
+    private static final int THREADS = 8;
+
+    private static final int UPDATES = 200;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    private Category category;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("BENCHMARK PRICE");
+        categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Hot Product");
+        product.setPrice(0L);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(product.getId());
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void hotProduct() throws Exception {
+        measure("pessimistic", () -> productPriceService.updatePricePessimistic(product.getId(), price -> price + 1));
+        measure("optimistic", () -> productPriceService.updatePrice(product.getId(), price -> price + 1));
+        measure("atomic", () -> productPriceService.addPrice(product.getId(), 1));
+    }
+
+    private void measure(String label, Runnable update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failed = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES; j++) {
+                        try {
+                            update.run();
+                        } catch (OptimisticLockingFailureException exception) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            int succeeded = THREADS * UPDATES - failed.get();
+            System.out.printf("%s: %d updates by %d threads, %.0f updates/s, %d gave up after retrying%n",
+                    label, succeeded, THREADS, succeeded / seconds, failed.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
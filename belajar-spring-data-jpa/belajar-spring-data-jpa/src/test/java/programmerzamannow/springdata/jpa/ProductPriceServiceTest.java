@@ -0,0 +1,127 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+public class ProductPriceServiceTest {
+
+    private static final int THREADS = 4;
+
+    private static final int UPDATES = 25;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    private Category category;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("PRICE");
+        categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Price Product");
+        product.setPrice(0L);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(product.getId());
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void versionIsIncremented() {
+        Assertions.assertEquals(0L, product.getVersion());
+
+        productPriceService.updatePrice(product.getId(), price -> price + 10);
+
+        Product updated = productRepository.findById(product.getId()).orElseThrow();
+        Assertions.assertEquals(10L, updated.getPrice());
+        Assertions.assertEquals(1L, updated.getVersion());
+    }
+
+    @Test
+    void missingPriceStaysMissing() {
+        product.setPrice(null);
+        productRepository.save(product);
+
+        Assertions.assertNull(productPriceService.updatePrice(product.getId(), price -> price + 10));
+        Assertions.assertNull(productPriceService.updatePricePessimistic(product.getId(), price -> price + 10));
+        Assertions.assertNull(productRepository.findById(product.getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        Product stale = productRepository.findById(product.getId()).orElseThrow();
+        Assertions.assertEquals(5L, productPriceService.updatePrice(product.getId(), price -> 5L));
+
+        stale.setPrice(6L);
+        Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> productRepository.save(stale));
+
+        Assertions.assertEquals(5L, productRepository.findById(product.getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void concurrentOptimisticUpdatesAreNotLost() throws Exception {
+        runConcurrently(() -> productPriceService.updatePrice(product.getId(), price -> price + 1));
+
+        Assertions.assertEquals(THREADS * UPDATES, productRepository.findById(product.getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void concurrentAtomicUpdatesAreNotLost() throws Exception {
+        runConcurrently(() -> productPriceService.addPrice(product.getId(), 1));
+
+        Product updated = productRepository.findById(product.getId()).orElseThrow();
+        Assertions.assertEquals(THREADS * UPDATES, updated.getPrice());
+        Assertions.assertEquals(THREADS * UPDATES, updated.getVersion());
+    }
+
+    private void runConcurrently(Runnable update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES; j++) {
+                        update.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
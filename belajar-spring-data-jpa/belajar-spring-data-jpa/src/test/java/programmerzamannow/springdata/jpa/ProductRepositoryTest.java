@@ -9,11 +9,14 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.support.TransactionOperations;
 import programmerzamannow.springdata.jpa.entity.Category;
 import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
 import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
 import programmerzamannow.springdata.jpa.model.SimpleProduct;
 import programmerzamannow.springdata.jpa.repository.CategoryRepository;
 import programmerzamannow.springdata.jpa.repository.ProductRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -89,6 +92,26 @@ public class ProductRepositoryTest {
         Assertions.assertEquals("Apple iPhone 14 Pro Max", products.getContent().get(0).getName());
     }
 
+    @Test
+    void findProductKeyset() {
+        KeysetPage<Product> page = productRepository.scrollByCategoryName("GADGET MURAH", null, 1);
+        Assertions.assertEquals(1, page.content().size());
+        Assertions.assertEquals("Apple iPhone 14 Pro Max", page.content().get(0).getName());
+        Assertions.assertTrue(page.hasNext());
+
+        page = productRepository.scrollByCategoryName("GADGET MURAH", page.nextToken(), 1);
+        Assertions.assertEquals(1, page.content().size());
+        Assertions.assertEquals("Apple iPhone 13 Pro Max", page.content().get(0).getName());
+
+        page = productRepository.scrollByCategoryNameOrderByPrice("GADGET MURAH", null, 2);
+        Assertions.assertEquals("Apple iPhone 13 Pro Max", page.content().get(0).getName());
+        Assertions.assertEquals("Apple iPhone 14 Pro Max", page.content().get(1).getName());
+
+        page = productRepository.scrollSearchProduct("%GADGET%", null, 10);
+        Assertions.assertEquals(2, page.content().size());
+        Assertions.assertFalse(page.hasNext());
+    }
+
     @Test
     void testCount() {
         Long count = productRepository.count();
@@ -246,4 +269,45 @@ public class ProductRepositoryTest {
         List<ProductPrice> productPrices = productRepository.findAllByNameLike("%Apple%", ProductPrice.class);
         Assertions.assertEquals(2, productPrices.size());
     }
+
+    @Test
+    void projectionSummary() {
+        List<ProductSummary> summaries = productRepository.findAllSummaryByCategoryName("GADGET MURAH", Sort.by(Sort.Order.asc("id")));
+        Assertions.assertEquals(2, summaries.size());
+        Assertions.assertEquals("Apple iPhone 14 Pro Max", summaries.get(0).name());
+        Assertions.assertEquals("GADGET MURAH", summaries.get(0).categoryName());
+
+        Page<ProductSummary> page = productRepository.findAllSummaryByCategoryName("GADGET MURAH", PageRequest.of(0, 1));
+        Assertions.assertEquals(2, page.getTotalElements());
+
+        page = productRepository.searchProductSummary("%GADGET%", PageRequest.of(0, 10));
+        Assertions.assertEquals(2, page.getContent().size());
+
+        summaries = productRepository.searchProductSummaryUsingName("Apple iPhone 14 Pro Max", PageRequest.of(0, 1));
+        Assertions.assertEquals(1, summaries.size());
+    }
+
+    @Test
+    void saveAllBatched() {
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            Category category = categoryRepository.findById(1L).orElse(null);
+            Assertions.assertNotNull(category);
+
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                Product product = new Product();
+                product.setName("Batch Product " + i);
+                product.setPrice(1_000L * i);
+                product.setCategory(category);
+                products.add(product);
+            }
+
+            int saved = productRepository.saveAllBatched(products, 50);
+            Assertions.assertEquals(120, saved);
+            Assertions.assertTrue(products.stream().allMatch(product -> product.getId() != null));
+            Assertions.assertTrue(productRepository.existsByName("Batch Product 119"));
+
+            transactionStatus.setRollbackOnly();
+        });
+    }
 }
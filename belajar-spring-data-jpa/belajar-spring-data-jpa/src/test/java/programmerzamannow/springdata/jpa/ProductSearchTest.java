@@ -0,0 +1,98 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.util.List;
+
+@SpringBootTest
+public class ProductSearchTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("Zentrax Gadget");
+        categoryRepository.save(category);
+
+        productRepository.saveAll(List.of(
+                product("Zentrax Phone Pro"),
+                product("Zentrax Phone Mini"),
+                product("Quorvel Charger")
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll(productRepository.findAllByCategory_Name(category.getName()));
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void rankByProductNameFirst() {
+        Page<Product> products = productRepository.fullTextSearch("zentrax phone", PageRequest.of(0, 10));
+
+        Assertions.assertEquals(3, products.getTotalElements());
+        Assertions.assertTrue(products.getContent().get(0).getName().startsWith("Zentrax Phone"));
+        Assertions.assertEquals("Quorvel Charger", products.getContent().get(2).getName());
+    }
+
+    @Test
+    void prefixWhileTyping() {
+        Page<Product> products = productRepository.fullTextSearch("quorv", PageRequest.of(0, 10));
+
+        Assertions.assertEquals(1, products.getTotalElements());
+        Assertions.assertEquals("Quorvel Charger", products.getContent().get(0).getName());
+    }
+
+    @Test
+    void paging() {
+        Page<Product> products = productRepository.fullTextSearch("zentrax", PageRequest.of(1, 2));
+
+        Assertions.assertEquals(3, products.getTotalElements());
+        Assertions.assertEquals(1, products.getContent().size());
+    }
+
+    @Test
+    void unpagedGetsEveryHit() {
+        Page<Product> products = productRepository.fullTextSearch("zentrax", Pageable.unpaged());
+
+        Assertions.assertEquals(3, products.getTotalElements());
+        Assertions.assertEquals(3, products.getContent().size());
+    }
+
+    @Test
+    void categoryRenameIsIndexed() {
+        category.setName("Vellumor Gadget");
+        categoryRepository.save(category);
+
+        Page<Product> products = productRepository.fullTextSearch("vellumor", PageRequest.of(0, 10));
+        Assertions.assertEquals(3, products.getTotalElements());
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(1_000L);
+        product.setCategory(category);
+        return product;
+    }
+}
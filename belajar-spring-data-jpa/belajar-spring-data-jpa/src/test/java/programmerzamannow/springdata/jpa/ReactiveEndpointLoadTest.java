@@ -0,0 +1,108 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams one category through the R2DBC endpoint and through the servlet + JPA endpoint with many concurrent
+ * clients, on the embedded database of {@link ReactiveProductTest}. Run with
+ * {@code mvn test -Dtest=ReactiveEndpointLoadTest -Dbenchmark=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ReactiveEndpointLoadTest {
+
+    private static final int CLIENTS = 500;
+
+    private static final int REQUESTS_PER_CLIENT = 20;
+
+    private static final int PRODUCTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("REACTIVE LOAD TEST");
+        categoryRepository.save(category);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Reactive Load Test Product " + i);
+            product.setPrice(1_000L + i);
+            product.setCategory(category);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 1_000);
+    }
+
+    @Test
+    void reactive() throws Exception {
+        load("r2dbc ndjson", "/api/reactive/categories/REACTIVE%20LOAD%20TEST/products");
+    }
+
+    @Test
+    void servlet() throws Exception {
+        load("servlet jpa", "/api/categories/REACTIVE%20LOAD%20TEST/products");
+    }
+
+    private void load(String name, String path) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+
+        LoadDriver.Report report = new LoadDriver(CLIENTS, 0, REQUESTS_PER_CLIENT, 42).run(name, (client, random) -> {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+        });
+
+        System.out.println(report);
+        Assertions.assertEquals(0, report.errors(), () -> String.valueOf(report.firstError()));
+    }
+}
@@ -0,0 +1,154 @@
+package programmerzamannow.springdata.jpa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.Sort;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.CategorySummary;
+import programmerzamannow.springdata.jpa.model.ProductPrice;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import programmerzamannow.springdata.jpa.reactive.ReactiveCategoryRepository;
+import programmerzamannow.springdata.jpa.reactive.ReactiveProductRepository;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JPA writes and R2DBC reads on one embedded H2 database, no MySQL needed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+public class ReactiveProductTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ReactiveProductRepository reactiveProductRepository;
+
+    @Autowired
+    private ReactiveCategoryRepository reactiveCategoryRepository;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Category category;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("REACTIVE");
+        categoryRepository.save(category);
+
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product();
+            product.setName("Reactive Product " + i);
+            product.setPrice(i == 0 ? null : i * 1_000L);
+            product.setCategory(category);
+            products.add(productRepository.save(product));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void readsWhatJpaWrote() {
+        List<ProductSummary> summaries = reactiveProductRepository.findAllSummaryByCategoryName("REACTIVE").collectList().block();
+
+        Assertions.assertEquals(productRepository.findAllSummaryByCategoryName("REACTIVE", Sort.by("id")), summaries);
+        Assertions.assertEquals(5L, reactiveProductRepository.countByCategoryName("REACTIVE").block());
+        Assertions.assertEquals(new ProductPrice(products.get(0).getId(), null),
+                reactiveProductRepository.findPriceById(products.get(0).getId()).block());
+        Assertions.assertEquals(new CategorySummary(category.getId(), "REACTIVE"),
+                reactiveCategoryRepository.findFirstByNameEquals("REACTIVE").block());
+
+        List<ProductSummary> page = reactiveProductRepository
+                .searchProductSummary("Reactive Product%", products.get(1).getId(), 2).collectList().block();
+        Assertions.assertEquals(List.of(products.get(2).getId(), products.get(3).getId()),
+                page.stream().map(ProductSummary::id).toList());
+    }
+
+    @Test
+    void cancelledStreamReleasesItsConnection() {
+        List<ProductSummary> first = reactiveProductRepository.findAllSummaryByCategoryName("REACTIVE")
+                .limitRate(1)
+                .take(2)
+                .collectList()
+                .block();
+
+        Assertions.assertEquals(2, first.size());
+        ConnectionPool pool = (ConnectionPool) connectionFactory;
+        Awaitility.await().atMost(Duration.ofSeconds(5))
+                .until(() -> pool.getMetrics().orElseThrow().acquiredSize() == 0);
+    }
+
+    @Test
+    void streamsNdjsonLikeTheServletEndpointReturnsJson() throws Exception {
+        HttpClient httpClient = HttpClient.newHttpClient();
+
+        HttpResponse<String> reactive = httpClient.send(request("/api/reactive/categories/REACTIVE/products"),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> servlet = httpClient.send(request("/api/categories/REACTIVE/products"),
+                HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, reactive.statusCode());
+        Assertions.assertTrue(reactive.headers().firstValue("Content-Type").orElseThrow().startsWith("application/x-ndjson"));
+        List<ProductSummary> streamed = new ArrayList<>();
+        for (String line : reactive.body().split("\n")) {
+            streamed.add(objectMapper.readValue(line, ProductSummary.class));
+        }
+        Assertions.assertEquals(Arrays.asList(objectMapper.readValue(servlet.body(), ProductSummary[].class)), streamed);
+
+        Assertions.assertEquals(404, httpClient.send(request("/api/reactive/products/-1/price"),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+    }
+}
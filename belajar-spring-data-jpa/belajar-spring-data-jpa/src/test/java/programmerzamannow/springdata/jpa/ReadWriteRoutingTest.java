@@ -0,0 +1,120 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.config.ReplicaRoutingDataSource;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two embedded H2 databases. The replica gets the schema of the primary but data of its own, so a read tells which
+ * database answered it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.instances[0].url=" + ReadWriteRoutingTest.REPLICA_URL,
+        "app.datasource.replicas.lag-query=SELECT 0 AS behind",
+        "app.datasource.replicas.lag-column=behind"
+})
+public class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String REPLICA_CATEGORY = "REPLICA ONLY";
+
+    private static final String REPLICA_PRODUCT = "Replica Product";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        // the schema of the primary, created by Hibernate, copied once
+        if (replica.queryForObject("SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'product'", Integer.class) == 0) {
+            jdbcTemplate.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+            replica.update("INSERT INTO categories (id, name) VALUES (1, ?)", REPLICA_CATEGORY);
+            replica.update("INSERT INTO product (id, name, price, version, category_id) VALUES (1, ?, 100, 0, 1)", REPLICA_PRODUCT);
+        }
+        replicaDataSource.checkReplicas();
+    }
+
+    @Test
+    void readOnlyGoesToReplica() {
+        Assertions.assertEquals(List.of("replica-0"), replicaDataSource.healthyReplicas());
+        double replica = connections("replica-0");
+        double primary = connections("primary");
+
+        Assertions.assertEquals(1L, productRepository.countByCategory_name(REPLICA_CATEGORY));
+        Assertions.assertTrue(productRepository.existsByName(REPLICA_PRODUCT));
+
+        Assertions.assertEquals(replica + 2, connections("replica-0"));
+        Assertions.assertEquals(primary, connections("primary"));
+    }
+
+    @Test
+    void readWriteStaysOnPrimary() {
+        double replica = connections("replica-0");
+
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            Assertions.assertEquals(0L, productRepository.countByCategory_name(REPLICA_CATEGORY));
+        });
+
+        Assertions.assertEquals(replica, connections("replica-0"));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws Exception {
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource,
+                Map.of("lagging", new DelegatingDataSource(primaryDataSource)), 5, "SELECT 3600 AS behind", "behind", 60_000)) {
+            routing.checkReplicas();
+            Assertions.assertTrue(routing.healthyReplicas().isEmpty());
+
+            try (Connection connection = routing.getConnection()) {
+                Assertions.assertTrue(connection.isValid(1));
+            }
+        }
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("db.routing.connections").tag("target", target).counter().count();
+    }
+}
@@ -0,0 +1,61 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+
+import java.util.List;
+
+@SpringBootTest
+public class RepositoryMetricsTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rowsAndStatementsPerMethod() {
+        long calls = summary("repository.rows", "ProductRepository", "findAllByCategory_Name").count();
+        double rows = summary("repository.rows", "ProductRepository", "findAllByCategory_Name").totalAmount();
+
+        List<Product> products = productRepository.findAllByCategory_Name("GADGET MURAH");
+
+        DistributionSummary rowsSummary = summary("repository.rows", "ProductRepository", "findAllByCategory_Name");
+        Assertions.assertEquals(calls + 1, rowsSummary.count());
+        Assertions.assertEquals(rows + products.size(), rowsSummary.totalAmount());
+        Assertions.assertTrue(summary("repository.statements", "ProductRepository", "findAllByCategory_Name").max() >= 1);
+        Assertions.assertEquals(products.size(),
+                summary("repository.entities.loaded", "ProductRepository", "findAllByCategory_Name").max());
+    }
+
+    @Test
+    void flushOnCommitIsCounted() {
+        Category category = new Category();
+        category.setName("METRICS");
+        categoryRepository.save(category);
+
+        Assertions.assertTrue(summary("repository.flushes", "CategoryRepository", "save").max() >= 1);
+        Assertions.assertTrue(summary("repository.statements", "CategoryRepository", "save").max() >= 1);
+
+        categoryRepository.delete(category);
+    }
+
+    private DistributionSummary summary(String name, String repository, String method) {
+        return DistributionSummary.builder(name)
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package programmerzamannow.springdata.jpa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest(properties = "app.repository.coalescing.window=5s")
+public class RequestCoalescingTest {
+
+    private static final int CALLERS = 32;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("COALESCE");
+        categoryRepository.save(category);
+        for (int i = 0; i < 3; i++) {
+            saveProduct("Coalesced Product " + i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productBulkService.deleteCategoryWithProducts(category.getId(), 100);
+    }
+
+    @Test
+    void concurrentCallsShareOneQuery() throws Exception {
+        double executed = calls("executed");
+        double saved = calls("joined") + calls("cached");
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Product>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return productRepository.findAllByCategory_Name("COALESCE");
+                }));
+            }
+            start.countDown();
+        }
+
+        List<List<Product>> lists = new ArrayList<>();
+        for (Future<List<Product>> result : results) {
+            Assertions.assertEquals(3, result.get().size());
+            lists.add(result.get());
+        }
+        Assertions.assertEquals(CALLERS, lists.stream().map(System::identityHashCode).distinct().count());
+        Assertions.assertEquals(executed + 1, calls("executed"));
+        Assertions.assertEquals(saved + CALLERS - 1, calls("joined") + calls("cached"));
+        Assertions.assertTrue(meterRegistry.get("repository.coalescing.ratio")
+                .tag("method", "findAllByCategory_Name").gauge().value() > 0);
+    }
+
+    @Test
+    void committedWriteEndsTheCachedResult() {
+        double executed = calls("executed");
+
+        Assertions.assertEquals(3, productRepository.findAllByCategory_Name("COALESCE").size());
+        Assertions.assertEquals(3, productRepository.findAllByCategory_Name("COALESCE").size());
+        saveProduct("Coalesced Product 3");
+        Assertions.assertEquals(4, productRepository.findAllByCategory_Name("COALESCE").size());
+
+        Assertions.assertEquals(executed + 2, calls("executed"));
+    }
+
+    @Test
+    void callsInsideTransactionAreNotCoalesced() {
+        double bypassed = calls("bypassed");
+
+        transactionOperations.executeWithoutResult(transactionStatus -> {
+            productRepository.findAllByCategory_Name("COALESCE");
+            productRepository.findAllByCategory_Name("COALESCE");
+        });
+
+        Assertions.assertEquals(bypassed + 2, calls("bypassed"));
+    }
+
+    private double calls(String outcome) {
+        Counter counter = meterRegistry.find("repository.coalescing.calls")
+                .tag("method", "findAllByCategory_Name")
+                .tag("outcome", outcome)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void saveProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(100L);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+}
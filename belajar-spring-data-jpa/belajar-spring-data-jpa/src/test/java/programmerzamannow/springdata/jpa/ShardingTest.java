@@ -0,0 +1,254 @@
+package programmerzamannow.springdata.jpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+import programmerzamannow.springdata.jpa.entity.Category;
+import programmerzamannow.springdata.jpa.entity.Product;
+import programmerzamannow.springdata.jpa.model.KeysetPage;
+import programmerzamannow.springdata.jpa.model.ProductSummary;
+import programmerzamannow.springdata.jpa.repository.CategoryRepository;
+import programmerzamannow.springdata.jpa.repository.ProductRepository;
+import programmerzamannow.springdata.jpa.service.PriceSnapshotService;
+import programmerzamannow.springdata.jpa.service.ProductBatchProcessor;
+import programmerzamannow.springdata.jpa.service.ProductBulkService;
+import programmerzamannow.springdata.jpa.service.ProductExportService;
+import programmerzamannow.springdata.jpa.service.ProductPriceService;
+import programmerzamannow.springdata.jpa.service.ShardedProductService;
+import programmerzamannow.springdata.jpa.shard.ShardContext;
+import programmerzamannow.springdata.jpa.shard.ShardRouter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Three embedded H2 databases, the home database of {@code spring.datasource} is shard 0.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.r2dbc.url=r2dbc:h2:mem:///shard0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "app.datasource.shards.enabled=true",
+        "app.datasource.shards.instances[0].url=jdbc:h2:mem:shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.shards.instances[0].username=sa",
+        "app.datasource.shards.instances[0].password=",
+        "app.datasource.shards.instances[1].url=jdbc:h2:mem:shard2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.shards.instances[1].username=sa",
+        "app.datasource.shards.instances[1].password="
+})
+public class ShardingTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShardedProductService shardedProductService;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private PriceSnapshotService priceSnapshotService;
+
+    @Autowired
+    private ProductBatchProcessor productBatchProcessor;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * One category per shard, consecutive ids land on consecutive shards.
+     */
+    private final List<Category> categories = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < shardRouter.shardCount(); i++) {
+            Category category = new Category();
+            category.setName("SHARD " + i);
+            categories.add(categoryRepository.save(category));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        categories.forEach(category -> productBulkService.deleteCategoryWithProducts(category.getId(), 100));
+    }
+
+    @Test
+    void productsAreStoredOnTheShardOfTheirCategory() {
+        for (Category category : categories) {
+            Product product = shardedProductService.save(product("Sharded Product", 100L, category));
+            int shard = shardRouter.shardFor(category.getId());
+
+            Assertions.assertEquals(shard, shardRouter.shardOf(product.getId()));
+            Assertions.assertEquals(product.getName(), shardedProductService.findById(product.getId()).orElseThrow().getName());
+            Assertions.assertEquals(1, (long) ShardContext.call(shard, () -> productRepository.countByCategory_name(category.getName())));
+            if (shard != ShardContext.HOME) {
+                Assertions.assertTrue(productRepository.findById(product.getId()).isEmpty());
+            }
+        }
+        Assertions.assertEquals(3, categories.stream().map(category -> shardRouter.shardFor(category.getId())).distinct().count());
+        Assertions.assertEquals(3, shardedProductService.count());
+    }
+
+    @Test
+    void searchMergesThePagesOfEveryShard() {
+        List<Product> saved = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Category category = categories.get(i % categories.size());
+            saved.add(shardedProductService.save(product("Sharded Search " + i, (long) (i * 7 % 5), category)));
+        }
+        Comparator<Product> byPriceDescending = Comparator.comparing(Product::getPrice).reversed()
+                .thenComparing(Product::getId);
+        List<Long> expected = saved.stream().sorted(byPriceDescending).skip(4).limit(4).map(Product::getId).toList();
+
+        Page<Product> page = shardedProductService.searchProduct("Sharded Search%",
+                PageRequest.of(1, 4, Sort.by(Sort.Order.desc("price"))));
+
+        Assertions.assertEquals(expected, page.getContent().stream().map(Product::getId).toList());
+        Assertions.assertEquals(12, page.getTotalElements());
+        Assertions.assertEquals(3, page.getTotalPages());
+        Assertions.assertEquals(12, shardedProductService.countByCategoryName("SHARD 0")
+                + shardedProductService.countByCategoryName("SHARD 1")
+                + shardedProductService.countByCategoryName("SHARD 2"));
+    }
+
+    @Test
+    void priceUpdatesRunOnTheShardOfTheProduct() {
+        for (Category category : categories) {
+            Product product = shardedProductService.save(product("Sharded Price", 100L, category));
+
+            Assertions.assertTrue(productPriceService.addPrice(product.getId(), 5));
+            Assertions.assertEquals(110L, productPriceService.updatePricePessimistic(product.getId(), price -> price + 5));
+            Assertions.assertEquals(115L, productPriceService.updatePrice(product.getId(), price -> price + 5));
+            Assertions.assertEquals(115L, shardedProductService.findById(product.getId()).orElseThrow().getPrice());
+        }
+    }
+
+    @Test
+    void categoryReadsCoverEveryShard() throws Exception {
+        List<Product> saved = new ArrayList<>();
+        for (int i = 0; i < categories.size(); i++) {
+            Category category = categories.get(i);
+            category.setName("SHARD SHARED");
+            categoryRepository.save(category);
+            saved.add(shardedProductService.save(product("Ulvarith Shard " + i, (long) (10 - i), category)));
+            saved.add(shardedProductService.save(product("Ulvarith Shard " + i, (long) (20 + i), category)));
+        }
+        List<Long> byId = saved.stream().map(Product::getId).sorted().toList();
+        List<Long> byPrice = saved.stream().sorted(Comparator.comparing(Product::getPrice)).map(Product::getId).toList();
+
+        Assertions.assertEquals(byId, shardedProductService.findAllSummaryByCategoryName("SHARD SHARED").stream()
+                .map(ProductSummary::id).toList());
+        Assertions.assertEquals(6, shardedProductService.findAllByCategoryName("SHARD SHARED").size());
+
+        KeysetPage<Product> page = shardedProductService.scrollByCategoryName("SHARD SHARED", null, 4);
+        Assertions.assertEquals(byId.subList(0, 4), page.content().stream().map(Product::getId).toList());
+        page = shardedProductService.scrollByCategoryName("SHARD SHARED", page.nextToken(), 4);
+        Assertions.assertEquals(byId.subList(4, 6), page.content().stream().map(Product::getId).toList());
+        Assertions.assertFalse(page.hasNext());
+
+        page = shardedProductService.scrollByCategoryNameOrderByPrice("SHARD SHARED", null, 4);
+        Assertions.assertEquals(byPrice.subList(0, 4), page.content().stream().map(Product::getId).toList());
+        page = shardedProductService.scrollByCategoryNameOrderByPrice("SHARD SHARED", page.nextToken(), 4);
+        Assertions.assertEquals(byPrice.subList(4, 6), page.content().stream().map(Product::getId).toList());
+
+        for (Category category : categories) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Assertions.assertEquals(2, productExportService.export(category, ProductExportService.Format.CSV, outputStream));
+            Assertions.assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("Ulvarith Shard"));
+        }
+
+        Page<Product> hits = productRepository.fullTextSearch("ulvarith", PageRequest.of(0, 10));
+        Assertions.assertEquals(6, hits.getTotalElements());
+        Assertions.assertEquals(byId, hits.getContent().stream().map(Product::getId).sorted().toList());
+    }
+
+    @Test
+    void idsWithoutAShardAreNotFound() {
+        for (Long id : List.of(-1L, 0L, (long) shardRouter.shardCount() << 48, Long.MIN_VALUE)) {
+            Assertions.assertFalse(shardRouter.isProductId(id));
+            Assertions.assertTrue(shardedProductService.findById(id).isEmpty());
+            Assertions.assertTrue(priceSnapshotService.findPrice(id).isEmpty());
+            Assertions.assertFalse(productPriceService.addPrice(id, 5));
+            Assertions.assertEquals(0, productBulkService.deleteByIds(List.of(id), 100));
+            shardedProductService.deleteById(id);
+        }
+    }
+
+    @Test
+    void batchJobsAreRefused() {
+        Assertions.assertThrows(IllegalStateException.class, () -> productBatchProcessor.recomputePrices("sharded-prices", 100, price -> price + 1));
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class, () -> productRepository.reindexAll());
+    }
+
+    @Test
+    void categoriesAreCopiedToEveryShard() {
+        Category category = categories.get(1);
+        category.setName("SHARD RENAMED");
+        categoryRepository.save(category);
+
+        shardRouter.shards().forEach(shard -> Assertions.assertEquals("SHARD RENAMED", ShardContext.call(shard, () ->
+                jdbcTemplate.queryForObject("SELECT name FROM categories WHERE id = ?", String.class, category.getId()))));
+
+        Category removed = categories.remove(2);
+        productBulkService.deleteCategoryWithProducts(removed.getId(), 100);
+        shardRouter.shards().forEach(shard -> Assertions.assertEquals(0, ShardContext.call(shard, () ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categories WHERE id = ?", Long.class, removed.getId()))));
+    }
+
+    @Test
+    void shardCannotChangeInsideTransaction() {
+        int other = ShardContext.HOME + 1;
+
+        Assertions.assertThrows(IllegalStateException.class, () -> transactionOperations.executeWithoutResult(
+                transactionStatus -> shardRouter.onShard(other, () -> productRepository.count())));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            Product product = shardedProductService.save(product("Sharded Product", 100L, categories.get(0)));
+            product.setCategory(categories.get(1));
+            shardedProductService.save(product);
+        });
+    }
+
+    private Product product(String name, Long price, Category category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategory(category);
+        return product;
+    }
+}
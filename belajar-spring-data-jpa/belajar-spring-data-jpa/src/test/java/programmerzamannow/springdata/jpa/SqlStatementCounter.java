@@ -0,0 +1,41 @@
+package programmerzamannow.springdata.jpa;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts every SQL statement Hibernate sends on the current thread, import it with
+ * {@code @Import(SqlStatementCounter.Config.class)} and assert with {@link #count()}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> COUNTER = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public static void reset() {
+        COUNTER.get().set(0);
+    }
+
+    public static int count() {
+        return COUNTER.get().get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get().incrementAndGet();
+        return sql;
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+        }
+    }
+}